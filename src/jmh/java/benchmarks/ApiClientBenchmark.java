@@ -0,0 +1,72 @@
+package benchmarks;
+
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.*;
+import utils.ApiClient;
+import utils.MockServerManager;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida y vuelta completa de ApiClient contra un WireMock local (puerto libre).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiClientBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        MockServerManager mock;
+
+        @Setup(Level.Trial)
+        public void start() {
+            mock = new MockServerManager();
+            mock.start(0);
+            for (int i = 0; i < 1000; i++) {
+                mock.createTask("Tarea " + i, null, "PENDING");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            mock.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        ApiClient api;
+
+        @Setup(Level.Trial)
+        public void create(Server server) {
+            api = new ApiClient(server.mock.getBaseUrl());
+        }
+    }
+
+    @Benchmark
+    public int getById(Client client) {
+        return client.api.getTodoById(1).statusCode();
+    }
+
+    @Benchmark
+    public int createAndDelete(Client client) {
+        Response created = client.api.createTodo(Map.of("title", "Benchmark"));
+        return client.api.deleteTodo(created.jsonPath().getInt("id")).statusCode();
+    }
+
+    @Benchmark
+    public int pageOf100(Client client) {
+        return client.api.getTodosPage("PENDING", 100, null).statusCode();
+    }
+
+    @Benchmark
+    public int getByIdAsync(Client client) throws Exception {
+        HttpResponse<String> response = client.api.getTodoByIdAsync(1).get();
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.ConfigManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas de configuración: están en el camino de cada ApiClient y TodoPage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigManagerBenchmark {
+
+    @Benchmark
+    public String getString() {
+        return ConfigManager.get("base.url", "http://localhost:8080");
+    }
+
+    @Benchmark
+    public int getInt() {
+        return ConfigManager.getInt("explicit.wait", 15);
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return ConfigManager.getBoolean("headless", true);
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return ConfigManager.get("clave.que.no.existe", "defecto");
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.MockServerManager;
+import utils.TaskStatus;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Altas, cambios de estado y bajas concurrentes sobre un mismo almacén.
+ * El grupo {@code mixed} reparte los hilos entre las tres operaciones;
+ * {@code churn} hace las tres seguidas y escala con {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContendedStoreBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private MockServerManager store;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        store = new MockServerManager();
+        for (int i = 0; i < size; i++) {
+            store.createTask("Tarea " + i, null, TaskStatus.PENDING);
+        }
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public int create() {
+        return store.createTask("Nueva", null, TaskStatus.PENDING);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public boolean update() {
+        return store.updateTaskStatus(randomId(),
+                ThreadLocalRandom.current().nextBoolean() ? TaskStatus.DONE : TaskStatus.PENDING);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public boolean deleteAndRecreate() {
+        int id = randomId();
+        boolean deleted = store.deleteTask(id);
+        store.createTask("Repuesta", null, TaskStatus.PENDING);
+        return deleted;
+    }
+
+    @Benchmark
+    @Group("churn")
+    public boolean churn() {
+        int id = store.createTask("Efimera", null, TaskStatus.PENDING);
+        store.updateTaskStatus(id, TaskStatus.DONE);
+        return store.deleteTask(id);
+    }
+}
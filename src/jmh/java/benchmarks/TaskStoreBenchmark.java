@@ -0,0 +1,72 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.MockServerManager;
+import utils.Task;
+import utils.TaskStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas y serialización del almacén del mock según el tamaño del dataset
+ * (30% de tareas en DONE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private MockServerManager store;
+    private List<Task> page;
+    private Task single;
+    private int middleId;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        store = new MockServerManager();
+        for (int i = 0; i < size; i++) {
+            store.createTask("Tarea de benchmark " + i, "Descripcion " + i,
+                    i % 10 < 3 ? TaskStatus.DONE : TaskStatus.PENDING);
+        }
+        page = store.getTasksAfter(null, 0, 100);
+        single = store.getTaskById(1);
+        middleId = size / 2;
+    }
+
+    @Benchmark
+    public List<Task> getTasksByStatus() {
+        return store.getTasksByStatus(TaskStatus.DONE);
+    }
+
+    @Benchmark
+    public List<Task> getPageFromMiddle() {
+        return store.getTasksAfter(TaskStatus.DONE, middleId, 100);
+    }
+
+    @Benchmark
+    public byte[] toJsonPageOf100() {
+        return store.toJsonBytes(page);
+    }
+
+    @Benchmark
+    public byte[] toJsonSingle() {
+        return store.toJsonBytes(single);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void toJsonAllDone(Blackhole bh) {
+        bh.consume(store.toJsonBytes(store.getTasksByStatus(TaskStatus.DONE)));
+    }
+}
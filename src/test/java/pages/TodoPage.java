@@ -3,32 +3,55 @@ package pages;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import utils.ConfigManager;
+import utils.DomWaiter;
+import utils.Timings;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class TodoPage {
+    private static final String TASK_LIST = "#task-list";
+    private static final String SNAPSHOT_SCRIPT =
+            "return Array.from(document.querySelectorAll(\"[data-testid='todo-item']\"),"
+                    + " e => ({title: e.dataset.title, completed: e.classList.contains('completed')}));";
+
+    /**
+     * Una tarea tal como se ve en la lista.
+     */
+    public record TodoItem(String title, boolean completed) { }
+
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final DomWaiter waiter;
+    private final String baseUrl;
 
     @FindBy(id = "todo-title-input") private WebElement titleInput;
     @FindBy(id = "add-todo-btn") private WebElement addButton;
-    @FindBy(css = ".todo-item") private List<WebElement> todoItems;
     @FindBy(css = ".error-message") private WebElement errorMessage;
 
     public TodoPage(WebDriver driver) {
+        this(driver, ConfigManager.get("base.url", "http://localhost:8080"));
+    }
+
+    public TodoPage(WebDriver driver, String baseUrl) {
         this.driver = driver;
+        this.baseUrl = baseUrl;
         int w = ConfigManager.getInt("explicit.wait", 15);
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(w));
+        this.waiter = new DomWaiter(driver, Duration.ofSeconds(w));
         PageFactory.initElements(driver, this);
     }
 
     public void navigateTo() {
-        driver.get(ConfigManager.get("base.url", "http://localhost:8080"));
-        wait.until(ExpectedConditions.visibilityOfElementLocated(
-                By.id("todo-title-input")));
+        long start = Timings.start();
+        try {
+            driver.get(baseUrl);
+        } finally {
+            Timings.record(Timings.Category.UI_WAIT, start);
+        }
+        if (!waiter.visible("body", "#todo-title-input")) {
+            throw new TimeoutException("La página de tareas no cargó el formulario");
+        }
     }
 
     public void enterTitle(String title) {
@@ -41,42 +64,73 @@ public class TodoPage {
     }
 
     public boolean isTodoVisible(String title) {
-        try {
-            wait.until(ExpectedConditions.presenceOfElementLocated(
-                    By.xpath("//div[contains(@class,'todo-item')]//span[text()='"
-                            + title + "']")));
-            return true;
-        } catch (TimeoutException e) {
-            return false;
-        }
+        return waiter.present(TASK_LIST, itemSelector(title));
+    }
+
+    /**
+     * Espera a que la tarea desaparezca; el observer resuelve en cuanto
+     * renderTasks() la quita. Devuelve false si sigue visible al expirar.
+     */
+    public boolean isTodoAbsent(String title) {
+        return waiter.absent(TASK_LIST, itemSelector(title));
     }
 
     public void completeTodo(String title) {
-        WebElement cb = driver.findElement(By.xpath(
-                "//div[contains(@class,'todo-item')]//span[text()='" + title
-                        + "']/preceding-sibling::input[@type='checkbox']"));
+        WebElement cb = find(itemSelector(title) + " [data-testid='todo-toggle']");
         if (!cb.isSelected()) cb.click();
     }
 
+    /**
+     * Espera a que la tarea tenga la clase completed y confirma su estado con
+     * el snapshot de {@link #getTodos()}.
+     */
     public boolean isTodoCompleted(String title) {
-        try {
-            WebElement item = driver.findElement(By.xpath(
-                    "//div[contains(@class,'todo-item') and .//span[text()='"
-                            + title + "']]"));
-            return item.getAttribute("class").contains("completed");
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return waiter.hasClass(TASK_LIST, itemSelector(title), "completed") && getTodos().stream()
+                .anyMatch(item -> item.title().equals(title) && item.completed());
     }
 
     public void deleteTodo(String title) {
-        driver.findElement(By.xpath(
-                "//div[contains(@class,'todo-item') and .//span[text()='"
-                        + title + "']]//button[contains(@class,'delete-btn')]")).click();
+        find(itemSelector(title) + " [data-testid='todo-delete']").click();
+    }
+
+    /**
+     * Lee la lista completa con una sola llamada JavaScript, en orden de pantalla.
+     */
+    public List<TodoItem> getTodos() {
+        Object raw = ((JavascriptExecutor) driver).executeScript(SNAPSHOT_SCRIPT);
+        List<TodoItem> items = new ArrayList<>();
+        if (raw instanceof List) {
+            for (Object entry : (List<?>) raw) {
+                Map<?, ?> item = (Map<?, ?>) entry;
+                items.add(new TodoItem(String.valueOf(item.get("title")),
+                        Boolean.TRUE.equals(item.get("completed"))));
+            }
+        }
+        return items;
+    }
+
+    private WebElement find(String selector) {
+        if (!waiter.visible(TASK_LIST, selector)) {
+            throw new NoSuchElementException("No aparece: " + selector);
+        }
+        return driver.findElement(By.cssSelector(selector));
+    }
+
+    /**
+     * Localiza una tarea por su atributo data-title, sin depender del texto visible.
+     */
+    private static String itemSelector(String title) {
+        return "[data-testid='todo-item'][data-title=" + cssString(title) + "]";
+    }
+
+    private static String cssString(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
     }
 
     public String getErrorMessage() {
-        wait.until(ExpectedConditions.visibilityOf(errorMessage));
+        if (!waiter.visible("body", ".error-message")) {
+            throw new TimeoutException("No se mostró el mensaje de error");
+        }
         return errorMessage.getText();
     }
 }
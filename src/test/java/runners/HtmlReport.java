@@ -0,0 +1,148 @@
+package runners;
+
+import net.masterthought.cucumber.Configuration;
+import net.masterthought.cucumber.ReportBuilder;
+import utils.ConfigManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Informe agregado a partir de los streams de {@link StreamingReport}.
+ * cucumber.json se compone en streaming: por cada feature se mezclan los
+ * streams de los shards línea a línea (en memoria solo la siguiente línea de
+ * cada uno). Después cucumber-reporting genera el HTML en
+ * {@code cucumber-html-reports/}, con tendencias entre ejecuciones en
+ * {@code report.trends.file}; {@code cucumber.html} redirige a su resumen.
+ * El HTML se genera de una vez sobre el cucumber.json completo: sus páginas
+ * de resumen, etiquetas y tendencias agregan toda la ejecución.
+ */
+public final class HtmlReport {
+    static final String STREAM = "stream";
+    static final String STREAM_SUFFIX = ".ndjson";
+    static final String ATTACHMENTS = "attachments";
+    private static final String LINE_PREFIX = "{\"line\":";
+    private static final String OVERVIEW = "cucumber-html-reports/overview-features.html";
+
+    private HtmlReport() { }
+
+    public static Path reportDir() {
+        return Paths.get(ConfigManager.get("report.dir", "target/cucumber-reports"));
+    }
+
+    /**
+     * Junta los streams de uno o varios directorios (uno por shard): los
+     * ficheros con el mismo nombre son del mismo feature.
+     */
+    public static void build(List<Path> streamDirs, Path reportDir) throws IOException {
+        Map<String, List<Path>> byFeature = new TreeMap<>();
+        for (Path streamDir : streamDirs) {
+            if (!Files.isDirectory(streamDir)) continue;
+            try (Stream<Path> files = Files.list(streamDir)) {
+                files.filter(f -> f.getFileName().toString().endsWith(STREAM_SUFFIX)).sorted()
+                        .forEach(f -> byFeature.computeIfAbsent(f.getFileName().toString(), k -> new ArrayList<>()).add(f));
+            }
+        }
+        Files.createDirectories(reportDir);
+        Path json = reportDir.resolve("cucumber.json");
+        int scenarios = 0;
+        try (Writer out = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+            out.write('[');
+            boolean firstFeature = true;
+            for (List<Path> files : byFeature.values()) {
+                List<BufferedReader> streams = new ArrayList<>();
+                try {
+                    String header = null;
+                    for (Path file : files) {
+                        BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                        streams.add(in);
+                        String first = in.readLine();
+                        if (header == null) header = first;
+                    }
+                    if (header == null) continue;
+                    if (!firstFeature) out.write(',');
+                    firstFeature = false;
+                    // La cabecera es un objeto JSON: se reabre para añadir los escenarios
+                    out.write(header, 0, header.lastIndexOf('}'));
+                    out.write(",\"elements\":[");
+                    scenarios += merge(streams, out);
+                    out.write("]}");
+                } finally {
+                    for (BufferedReader in : streams) in.close();
+                }
+            }
+            out.write(']');
+        }
+        System.out.printf("Informe: %d features, %d escenarios -> %s%n", byFeature.size(), scenarios, json);
+        if (scenarios > 0) {
+            generate(json, reportDir);
+            Files.writeString(reportDir.resolve("cucumber.html"), "<!DOCTYPE html><meta charset=\"utf-8\">"
+                    + "<meta http-equiv=\"refresh\" content=\"0; url=" + OVERVIEW + "\">"
+                    + "<a href=\"" + OVERVIEW + "\">Informe de cucumber-reporting</a>\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Mezcla los escenarios de un feature eligiendo siempre la línea menor
+     * entre las cabezas de los streams. Cada shard escribe en el orden en que
+     * terminan sus escenarios: con orden de fichero y sin paralelo el resultado
+     * queda ordenado por línea; si no, se respeta el orden de cada shard.
+     */
+    private static int merge(List<BufferedReader> streams, Writer out) throws IOException {
+        PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparingInt(Head::line).thenComparingInt(Head::stream));
+        for (int i = 0; i < streams.size(); i++) {
+            Head head = next(streams.get(i), i);
+            if (head != null) heads.add(head);
+        }
+        int written = 0;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            if (written++ > 0) out.write(',');
+            out.write(head.json());
+            Head next = next(streams.get(head.stream()), head.stream());
+            if (next != null) heads.add(next);
+        }
+        return written;
+    }
+
+    private static Head next(BufferedReader in, int stream) throws IOException {
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (!line.isEmpty()) return new Head(line, lineOf(line), stream);
+        }
+        return null;
+    }
+
+    private record Head(String json, int line, int stream) { }
+
+    private static void generate(Path json, Path reportDir) throws IOException {
+        Configuration configuration = new Configuration(reportDir.toFile(),
+                ConfigManager.get("report.project", "todo-bdd-capstone"));
+        String build = ConfigManager.get("report.build.number", "");
+        if (!build.isEmpty()) configuration.setBuildNumber(build);
+        configuration.addClassifications("Navegador", ConfigManager.get("browser", "chrome"));
+        Path trends = Paths.get(ConfigManager.get("report.trends.file", "target/report-history/trends.json"));
+        if (trends.getParent() != null) Files.createDirectories(trends.getParent());
+        configuration.setTrends(trends.toFile(), ConfigManager.getInt("report.trends.limit", 30));
+        new ReportBuilder(List.of(json.toString()), configuration).generateReports();
+    }
+
+    /** Línea del escenario, que {@link StreamingReport} escribe como primer campo. */
+    static int lineOf(String element) {
+        if (!element.startsWith(LINE_PREFIX)) return Integer.MAX_VALUE;
+        int end = LINE_PREFIX.length();
+        while (end < element.length() && Character.isDigit(element.charAt(end))) end++;
+        return Integer.parseInt(element.substring(LINE_PREFIX.length(), end));
+    }
+}
@@ -0,0 +1,28 @@
+package runners;
+
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
+import utils.ConfigManager;
+
+/**
+ * Estrategia de ejecución paralela que toma el número de workers de
+ * {@link ConfigManager} (clave {@code parallel.workers}).
+ * El pool es fijo: nunca se crean más hilos que workers, así cada worker
+ * mantiene un único driver y un único servidor mock.
+ */
+public class ParallelStrategy implements ParallelExecutionConfigurationStrategy {
+
+    @Override
+    public ParallelExecutionConfiguration createConfiguration(ConfigurationParameters params) {
+        int configured = ConfigManager.getInt("parallel.workers", 0);
+        int workers = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        return new ParallelExecutionConfiguration() {
+            @Override public int getParallelism() { return workers; }
+            @Override public int getMinimumRunnable() { return 0; }
+            @Override public int getMaxPoolSize() { return workers; }
+            @Override public int getCorePoolSize() { return workers; }
+            @Override public int getKeepAliveSeconds() { return 30; }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package runners;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Une los resultados de los shards: los streams de {@link StreamingReport} en
+ * un único informe (cucumber.json y HTML, vía {@link HtmlReport}), los adjuntos
+ * en un solo directorio y las duraciones observadas en el histórico que usará
+ * la siguiente planificación.
+ *
+ * <pre>mvn -Pmerge-reports test-compile exec:java -Dexec.args="target/shards"</pre>
+ */
+public class ReportMerger {
+
+    public static void main(String[] args) throws IOException {
+        Path input = Paths.get(args.length > 0 ? args[0] : "target/shards");
+        Path output = args.length > 1 ? Paths.get(args[1]) : HtmlReport.reportDir();
+
+        // Los nombres de los adjuntos llevan el shard delante, así que no chocan
+        Path attachments = Files.createDirectories(output.resolve(HtmlReport.ATTACHMENTS));
+        List<Path> files = find(input, p -> p.getParent().getFileName().toString().equals(HtmlReport.ATTACHMENTS));
+        for (Path file : files) {
+            Files.copy(file, attachments.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<Path> streams = find(input, p -> p.getFileName().toString().endsWith(HtmlReport.STREAM_SUFFIX)).stream()
+                .map(Path::getParent).distinct().collect(Collectors.toList());
+        System.out.printf("Streams: %d directorios, %d adjuntos%n", streams.size(), files.size());
+        HtmlReport.build(streams, output);
+
+        List<Path> durations = find(input, p -> p.getFileName().toString().matches("shard-\\d+-of-\\d+\\.properties"));
+        Path history = ScenarioDurations.historyFile();
+        for (Path file : durations) {
+            ScenarioDurations.fold(history, ScenarioDurations.load(file));
+        }
+        System.out.printf("Duraciones: %d shards incorporados a %s%n", durations.size(), history);
+    }
+
+    private static List<Path> find(Path dir, Predicate<Path> match) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).filter(match).sorted().collect(Collectors.toList());
+        }
+    }
+}
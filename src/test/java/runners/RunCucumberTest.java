@@ -7,9 +7,15 @@ import static io.cucumber.junit.platform.engine.Constants.*;
 @IncludeEngines("cucumber")
 @SelectPackages("features")
 @ConfigurationParameter(key = GLUE_PROPERTY_NAME, value = "steps")
-@ConfigurationParameter(key = FEATURES_PROPERTY_NAME,
-        value = "src/test/resources/features")
 @ConfigurationParameter(key = PLUGIN_PROPERTY_NAME,
-        value = "pretty, json:target/cucumber-reports/cucumber.json, html:target/cucumber-reports/cucumber.html")
+        value = "pretty, runners.StreamingReport, runners.TimingPlugin, runners.ScenarioDurations")
 @ConfigurationParameter(key = FILTER_TAGS_PROPERTY_NAME, value = "@todo")
+// Informe: streams NDJSON por feature y HTML de cucumber-reporting en target/cucumber-reports
+// (cucumber.html, que antes generaba el plugin html:, redirige ahora a ese informe)
+// Features (features.dir), orden por duración y shards (shard.index/shard.count):
+// runners.ShardScheduler los escribe en cucumber.features antes del descubrimiento
+// Paralelo opcional: -Dcucumber.execution.parallel.enabled=true (workers en parallel.workers)
+@ConfigurationParameter(key = PARALLEL_CONFIG_STRATEGY_PROPERTY_NAME, value = "custom")
+@ConfigurationParameter(key = PARALLEL_CONFIG_CUSTOM_CLASS_PROPERTY_NAME,
+        value = "runners.ParallelStrategy")
 public class RunCucumberTest { }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package runners;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import utils.ConfigManager;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Duración de cada escenario en ejecuciones anteriores, la que usa
+ * {@link ShardScheduler} para ordenar y repartir la suite.
+ * Como plugin, anota lo que tarda cada escenario de esta ejecución en
+ * {@code shard-<i>-of-<n>.properties} junto al histórico (durations.file).
+ * Sin shards se incorpora al histórico al terminar; con shards lo hace
+ * {@link ReportMerger}, para que todos los shards planifiquen con los mismos datos.
+ * Las claves son ruta del feature y línea del escenario (o de la fila del ejemplo).
+ */
+public class ScenarioDurations implements ConcurrentEventListener {
+    private static final Path ROOT = Paths.get("").toAbsolutePath();
+
+    private final Map<String, Long> observed = new ConcurrentHashMap<>();
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestCaseFinished.class, this::scenarioFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> save());
+    }
+
+    private void scenarioFinished(TestCaseFinished event) {
+        TestCase testCase = event.getTestCase();
+        observed.put(key(testCase.getUri(), testCase.getLocation().getLine()),
+                event.getResult().getDuration().toMillis());
+    }
+
+    private void save() {
+        if (observed.isEmpty()) return;
+        Path history = historyFile();
+        int index = ConfigManager.getInt("shard.index", 0);
+        int count = ConfigManager.getInt("shard.count", 1);
+        write(history.resolveSibling("shard-" + index + "-of-" + count + ".properties"), observed);
+        if (count == 1) fold(history, observed);
+    }
+
+    public static Path historyFile() {
+        return Paths.get(ConfigManager.get("durations.file", "target/durations/history.properties"));
+    }
+
+    public static String key(URI uri, int line) {
+        String path = "file".equals(uri.getScheme())
+                ? ROOT.relativize(Paths.get(uri).toAbsolutePath()).toString().replace('\\', '/')
+                : uri.getSchemeSpecificPart();
+        return path + ":" + line;
+    }
+
+    /** Duraciones en milisegundos; vacío si el fichero no existe. */
+    public static Map<String, Long> load(Path file) {
+        Map<String, Long> durations = new TreeMap<>();
+        if (!Files.isRegularFile(file)) return durations;
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        props.forEach((k, v) -> durations.put((String) k, Long.parseLong(((String) v).trim())));
+        return durations;
+    }
+
+    /**
+     * Incorpora lo observado al histórico con una media móvil (mitad y mitad),
+     * para que un escenario no cambie de sitio por una ejecución anómala.
+     */
+    public static synchronized void fold(Path history, Map<String, Long> fresh) {
+        Map<String, Long> merged = load(history);
+        fresh.forEach((key, millis) -> merged.merge(key, millis, (old, now) -> (old + now) / 2));
+        write(history, merged);
+    }
+
+    static void write(Path file, Map<String, Long> durations) {
+        Properties props = new Properties();
+        durations.forEach((k, v) -> props.setProperty(k, Long.toString(v)));
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                props.store(out, "Duración de escenarios en ms (feature:línea)");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
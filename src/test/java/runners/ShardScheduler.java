@@ -0,0 +1,195 @@
+package runners;
+
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.FilePosition;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.LauncherSessionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import utils.ConfigManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static io.cucumber.junit.platform.engine.Constants.FEATURES_PROPERTY_NAME;
+import static io.cucumber.junit.platform.engine.Constants.FILTER_NAME_PROPERTY_NAME;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.EngineFilter.includeEngines;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+/**
+ * Planifica los escenarios de Cucumber con las duraciones de
+ * {@link ScenarioDurations}: los reparte en {@code shard.count} shards
+ * equilibrados (el más largo primero, al shard con menos carga) y deja en este
+ * JVM solo los del shard {@code shard.index}. Los escenarios sin histórico
+ * cuentan como la mediana.
+ * Se registra como LauncherSessionListener en META-INF/services: antes de que
+ * se descubra nada, descubre {@link RunCucumberTest} desde {@code features.dir}
+ * y escribe el plan en {@code cucumber.features} como selectores
+ * {@code fichero:línea:línea}. Cucumber respeta el orden de los ficheros, así
+ * que los features van de más a menos largos (o en orden de fichero con
+ * schedule.order=file); dentro de cada feature, los escenarios siguen el orden
+ * del fichero. Otros motores (AppTest) no se tocan.
+ */
+public class ShardScheduler implements LauncherSessionListener {
+    private static final long UNKNOWN_MILLIS = 1000;
+    // Ningún escenario se llama así: deja vacío un shard sin escenarios
+    private static final String NO_SCENARIO = "a^";
+
+    private final Map<String, String> previous = new HashMap<>();
+
+    @Override
+    public void launcherSessionOpened(LauncherSession session) {
+        if (System.getProperty(FEATURES_PROPERTY_NAME) == null) {
+            set(FEATURES_PROPERTY_NAME, ConfigManager.get("features.dir", "src/test/resources/features"));
+        }
+        TestPlan discovered = session.getLauncher().discover(request()
+                .selectors(selectClass(RunCucumberTest.class))
+                .filters(includeEngines("junit-platform-suite"))
+                .build());
+        List<Scenario> scenarios = new ArrayList<>();
+        for (TestIdentifier root : discovered.getRoots()) {
+            collectScenarios(discovered, root, scenarios);
+        }
+        if (scenarios.isEmpty()) return;
+
+        List<Scenario> included = plan(scenarios);
+        if (included.isEmpty()) {
+            set(FILTER_NAME_PROPERTY_NAME, NO_SCENARIO);
+        } else {
+            set(FEATURES_PROPERTY_NAME, selectors(included));
+        }
+    }
+
+    @Override
+    public void launcherSessionClosed(LauncherSession session) {
+        previous.forEach((key, value) -> {
+            if (value == null) System.clearProperty(key);
+            else System.setProperty(key, value);
+        });
+        previous.clear();
+    }
+
+    private void set(String key, String value) {
+        previous.putIfAbsent(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+
+    private static List<Scenario> plan(List<Scenario> scenarios) {
+        int count = Math.max(1, ConfigManager.getInt("shard.count", 1));
+        int index = ConfigManager.getInt("shard.index", 0);
+        if (index < 0 || index >= count) {
+            throw new IllegalStateException("shard.index fuera de rango: " + index + " (shard.count=" + count + ")");
+        }
+        Map<String, Long> history = ScenarioDurations.load(ScenarioDurations.historyFile());
+        long fallback = median(history.values());
+        int known = 0;
+        for (Scenario scenario : scenarios) {
+            Long millis = history.get(scenario.key());
+            if (millis != null) known++;
+            scenario.estimate = millis != null ? millis : fallback;
+        }
+
+        // LPT: el escenario más largo va al shard con menos carga acumulada
+        List<Scenario> longestFirst = new ArrayList<>(scenarios);
+        longestFirst.sort(Comparator.comparingLong((Scenario s) -> s.estimate).reversed());
+        long[] load = new long[count];
+        List<Scenario> included = new ArrayList<>();
+        for (Scenario scenario : longestFirst) {
+            int target = 0;
+            for (int s = 1; s < count; s++) {
+                if (load[s] < load[target]) target = s;
+            }
+            load[target] += scenario.estimate;
+            if (target == index) included.add(scenario);
+        }
+
+        long total = 0;
+        for (long l : load) total += l;
+        System.out.printf("Shard %d/%d: %d de %d escenarios, estimado %.1f s de %.1f s (%d con histórico)%n",
+                index + 1, count, included.size(), scenarios.size(), load[index] / 1000.0, total / 1000.0, known);
+        // Vuelta al orden de descubrimiento: los empates y schedule.order=file lo conservan
+        included.sort(Comparator.comparingInt((Scenario s) -> s.position));
+        return included;
+    }
+
+    /**
+     * Un selector por feature con las líneas de sus escenarios; los features
+     * con más carga en este shard van primero (orden estable en los empates).
+     */
+    private static String selectors(List<Scenario> included) {
+        Map<String, List<Scenario>> byFeature = included.stream()
+                .collect(Collectors.groupingBy(Scenario::path, LinkedHashMap::new, Collectors.toList()));
+        List<Map.Entry<String, List<Scenario>>> features = new ArrayList<>(byFeature.entrySet());
+        if (!"file".equalsIgnoreCase(ConfigManager.get("schedule.order", "duration"))) {
+            features.sort(Comparator.comparingLong((Map.Entry<String, List<Scenario>> f) ->
+                    f.getValue().stream().mapToLong(s -> s.estimate).sum()).reversed());
+        }
+        List<String> selectors = new ArrayList<>();
+        for (Map.Entry<String, List<Scenario>> feature : features) {
+            StringBuilder selector = new StringBuilder(feature.getKey());
+            for (Scenario scenario : feature.getValue()) selector.append(':').append(scenario.line());
+            selectors.add(selector.toString());
+        }
+        return String.join(",", selectors);
+    }
+
+    private static void collectScenarios(TestPlan testPlan, TestIdentifier node, List<Scenario> out) {
+        if (node.isTest()) {
+            Scenario scenario = isCucumberEngine(node.getUniqueIdObject()) ? scenarioOf(node, out.size()) : null;
+            if (scenario != null) out.add(scenario);
+            return;
+        }
+        for (TestIdentifier child : testPlan.getChildren(node)) {
+            collectScenarios(testPlan, child, out);
+        }
+    }
+
+    /** Misma clave que {@link ScenarioDurations#key}: fichero del feature y línea. */
+    private static Scenario scenarioOf(TestIdentifier test, int position) {
+        TestSource source = test.getSource().orElse(null);
+        if (!(source instanceof FileSource)) return null;
+        FileSource file = (FileSource) source;
+        Integer line = file.getPosition().map(FilePosition::getLine).orElse(null);
+        if (line == null) return null;
+        String key = ScenarioDurations.key(file.getUri(), line);
+        return new Scenario(key.substring(0, key.lastIndexOf(':')), line, position);
+    }
+
+    private static long median(Iterable<Long> values) {
+        List<Long> sorted = new ArrayList<>();
+        values.forEach(sorted::add);
+        if (sorted.isEmpty()) return UNKNOWN_MILLIS;
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static boolean isCucumberEngine(UniqueId id) {
+        for (UniqueId.Segment segment : id.getSegments()) {
+            if ("engine".equals(segment.getType()) && "cucumber".equals(segment.getValue())) return true;
+        }
+        return false;
+    }
+
+    private static final class Scenario {
+        final String path;
+        final int line;
+        final int position;
+        long estimate;
+
+        Scenario(String path, int line, int position) {
+            this.path = path;
+            this.line = line;
+            this.position = position;
+        }
+
+        String path() { return path; }
+        int line() { return line; }
+        String key() { return path + ":" + line; }
+    }
+}
@@ -0,0 +1,312 @@
+package runners;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.DataTableArgument;
+import io.cucumber.plugin.event.DocStringArgument;
+import io.cucumber.plugin.event.EmbedEvent;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.HookType;
+import io.cucumber.plugin.event.Node;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.Step;
+import io.cucumber.plugin.event.StepArgument;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestSourceParsed;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import io.cucumber.plugin.event.WriteEvent;
+import utils.ConfigManager;
+import utils.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Informe en streaming: cada escenario se escribe como una línea JSON (NDJSON,
+ * un elemento del formato cucumber-json) en cuanto termina, en un fichero por
+ * feature bajo {@code <report.dir>/stream}. Los adjuntos se guardan como
+ * ficheros en {@code attachments/} y el informe solo los referencia, así que
+ * en memoria solo están los escenarios en curso.
+ * Sin shards, al terminar {@link HtmlReport} compone cucumber.json y el HTML a
+ * partir de los streams; con shards lo hace {@link ReportMerger} tras juntarlos.
+ */
+public class StreamingReport implements ConcurrentEventListener {
+    private final Path dir = HtmlReport.reportDir();
+    private final String shard = "s" + ConfigManager.getInt("shard.index", 0) + "-";
+    private final Map<URI, Map<String, Object>> features = new ConcurrentHashMap<>();
+    private final Map<UUID, Scenario> running = new ConcurrentHashMap<>();
+    private final Map<URI, OutputStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong attachments = new AtomicLong();
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, event -> clean());
+        publisher.registerHandlerFor(TestSourceParsed.class, this::featureParsed);
+        publisher.registerHandlerFor(TestCaseStarted.class, event -> running.put(event.getTestCase().getId(),
+                new Scenario(event.getTestCase(), event.getInstant())));
+        publisher.registerHandlerFor(TestStepStarted.class, event -> scenario(event.getTestCase()).start(event.getTestStep()));
+        publisher.registerHandlerFor(TestStepFinished.class, event -> scenario(event.getTestCase()).finish(event.getResult()));
+        publisher.registerHandlerFor(EmbedEvent.class, this::attach);
+        publisher.registerHandlerFor(WriteEvent.class, event -> scenario(event.getTestCase()).output(event.getText()));
+        publisher.registerHandlerFor(TestCaseFinished.class, event -> write(running.remove(event.getTestCase().getId())));
+        publisher.registerHandlerFor(TestRunFinished.class, event -> finish());
+    }
+
+    /** Los streams de una ejecución anterior no deben mezclarse con los de esta. */
+    private void clean() {
+        try {
+            for (String sub : List.of(HtmlReport.STREAM, HtmlReport.ATTACHMENTS)) {
+                Path target = dir.resolve(sub);
+                Files.createDirectories(target);
+                try (var files = Files.list(target)) {
+                    for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void featureParsed(TestSourceParsed event) {
+        for (Node node : event.getNodes()) {
+            if (!(node instanceof Node.Feature)) continue;
+            String name = node.getName().orElse("");
+            Map<String, Object> feature = new LinkedHashMap<>();
+            feature.put("uri", relative(event.getUri()));
+            feature.put("id", slug(name, '-'));
+            feature.put("keyword", node.getKeyword().orElse("Feature"));
+            feature.put("name", name);
+            feature.put("line", node.getLocation().getLine());
+            feature.put("description", "");
+            feature.put("tags", List.of());
+            features.put(event.getUri(), feature);
+        }
+    }
+
+    private Scenario scenario(TestCase testCase) {
+        return running.get(testCase.getId());
+    }
+
+    private void attach(EmbedEvent event) {
+        String name = event.getName() != null ? event.getName() : "adjunto";
+        String file = shard + attachments.incrementAndGet() + "-" + slug(name, '-') + "." + extension(event.getMediaType());
+        try {
+            Files.write(dir.resolve(HtmlReport.ATTACHMENTS).resolve(file), event.getData());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        scenario(event.getTestCase()).embed(event.getMediaType(), name, HtmlReport.ATTACHMENTS + "/" + file);
+    }
+
+    /** Una línea por escenario; el fichero del feature se abre (con su cabecera) la primera vez. */
+    private void write(Scenario scenario) {
+        if (scenario == null) return;
+        JsonWriter line = new JsonWriter(4096).value(scenario.element()).raw('\n');
+        URI uri = scenario.testCase.getUri();
+        OutputStream out = streams.computeIfAbsent(uri, this::open);
+        synchronized (out) {
+            try {
+                line.writeTo(out);
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private OutputStream open(URI uri) {
+        Path file = dir.resolve(HtmlReport.STREAM).resolve(slug(relative(uri), '_') + HtmlReport.STREAM_SUFFIX);
+        try {
+            OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Map<String, Object> feature = features.getOrDefault(uri, Map.of("uri", relative(uri), "name", relative(uri)));
+            new JsonWriter(256).value(feature).raw('\n').writeTo(out);
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void finish() {
+        try {
+            for (OutputStream out : streams.values()) out.close();
+            streams.clear();
+            if (ConfigManager.getInt("shard.count", 1) == 1 && ConfigManager.getBoolean("report.html", true)) {
+                HtmlReport.build(List.of(dir.resolve(HtmlReport.STREAM)), dir);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String relative(URI uri) {
+        String key = ScenarioDurations.key(uri, 0);
+        return key.substring(0, key.lastIndexOf(':'));
+    }
+
+    private static String slug(String text, char separator) {
+        String slug = text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", String.valueOf(separator));
+        return slug.isEmpty() ? "x" : slug;
+    }
+
+    private static String extension(String mediaType) {
+        switch (mediaType) {
+            case "image/png": return "png";
+            case "image/jpeg": return "jpg";
+            case "image/gif": return "gif";
+            case "text/plain": return "txt";
+            case "text/html": return "html";
+            case "application/json": return "json";
+            default: return "bin";
+        }
+    }
+
+    /**
+     * Escenario en curso. Sus eventos llegan en orden desde el hilo que lo
+     * ejecuta, así que no necesita sincronización.
+     */
+    private static final class Scenario {
+        private final TestCase testCase;
+        private final Instant started;
+        private final List<Map<String, Object>> before = new ArrayList<>();
+        private final List<Map<String, Object>> steps = new ArrayList<>();
+        private final List<Map<String, Object>> after = new ArrayList<>();
+        private final List<Map<String, Object>> beforeStep = new ArrayList<>();
+        private Map<String, Object> current;
+
+        Scenario(TestCase testCase, Instant started) {
+            this.testCase = testCase;
+            this.started = started;
+        }
+
+        void start(TestStep step) {
+            current = new LinkedHashMap<>();
+            if (step instanceof PickleStepTestStep) {
+                Step pickle = ((PickleStepTestStep) step).getStep();
+                current.put("keyword", pickle.getKeyword());
+                current.put("name", pickle.getText());
+                current.put("line", pickle.getLine());
+                argument(pickle.getArgument());
+                current.put("match", Collections.singletonMap("location", step.getCodeLocation()));
+                if (!beforeStep.isEmpty()) {
+                    current.put("before", new ArrayList<>(beforeStep));
+                    beforeStep.clear();
+                }
+                steps.add(current);
+                return;
+            }
+            current.put("match", Collections.singletonMap("location", step.getCodeLocation()));
+            HookType type = ((HookTestStep) step).getHookType();
+            switch (type) {
+                case BEFORE: before.add(current); break;
+                case AFTER: after.add(current); break;
+                case BEFORE_STEP: beforeStep.add(current); break;
+                default:
+                    if (steps.isEmpty()) after.add(current);
+                    else hooks(steps.get(steps.size() - 1), "after").add(current);
+            }
+        }
+
+        private void argument(StepArgument argument) {
+            if (argument instanceof DataTableArgument) {
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (List<String> cells : ((DataTableArgument) argument).cells()) rows.add(Map.of("cells", cells));
+                current.put("rows", rows);
+            } else if (argument instanceof DocStringArgument) {
+                DocStringArgument doc = (DocStringArgument) argument;
+                current.put("doc_string", Map.of("value", doc.getContent(), "line", doc.getLine()));
+            }
+        }
+
+        void finish(Result result) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("status", result.getStatus().name().toLowerCase(Locale.ROOT));
+            json.put("duration", result.getDuration().toNanos());
+            if (result.getError() != null) {
+                StringWriter trace = new StringWriter();
+                result.getError().printStackTrace(new PrintWriter(trace));
+                json.put("error_message", trace.toString());
+            }
+            current.put("result", json);
+        }
+
+        /**
+         * El adjunto ya está en disco: al informe va solo la ruta. Las imágenes
+         * como image/url (cucumber-reporting las enlaza) y el resto como un enlace HTML.
+         * Las rutas son relativas a cucumber-html-reports/, donde vive el HTML.
+         */
+        void embed(String mediaType, String name, String file) {
+            boolean image = mediaType.startsWith("image/");
+            String data = image ? "../" + file : "<a href=\"../" + file + "\" download>" + file + "</a>";
+            Map<String, Object> embedding = new LinkedHashMap<>();
+            embedding.put("mime_type", image ? "image/url" : "text/html");
+            embedding.put("media_type", mediaType);
+            embedding.put("name", name);
+            embedding.put("file", file);
+            embedding.put("data", Base64.getEncoder().encodeToString(data.getBytes(StandardCharsets.UTF_8)));
+            hooks(target(), "embeddings").add(embedding);
+        }
+
+        void output(String text) {
+            @SuppressWarnings("unchecked")
+            List<Object> output = (List<Object>) target().computeIfAbsent("output", k -> new ArrayList<>());
+            output.add(text);
+        }
+
+        /** Fuera de un paso (p. ej. un plugin al cerrar) se adjunta al último. */
+        private Map<String, Object> target() {
+            if (current != null) return current;
+            current = new LinkedHashMap<>();
+            after.add(current);
+            return current;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Map<String, Object>> hooks(Map<String, Object> step, String key) {
+            return (List<Map<String, Object>>) step.computeIfAbsent(key, k -> new ArrayList<>());
+        }
+
+        /** {@code line} va primero: {@link HtmlReport} ordena por ella sin parsear la línea. */
+        Map<String, Object> element() {
+            Map<String, Object> element = new LinkedHashMap<>();
+            element.put("line", testCase.getLocation().getLine());
+            element.put("id", slug(testCase.getName(), '-') + ";" + testCase.getLocation().getLine());
+            element.put("type", "scenario");
+            element.put("keyword", testCase.getKeyword());
+            element.put("name", testCase.getName());
+            element.put("description", "");
+            element.put("start_timestamp", started.toString());
+            List<Map<String, String>> tags = new ArrayList<>();
+            for (String tag : testCase.getTags()) tags.add(Map.of("name", tag));
+            element.put("tags", tags);
+            element.put("before", before);
+            element.put("steps", steps);
+            element.put("after", after);
+            return element;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package runners;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import utils.ConfigManager;
+import utils.Timings;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plugin de Cucumber que mide cada paso y hook y reparte su tiempo entre las
+ * categorías de {@link Timings} (HTTP, espera UI, stubs, setup; el resto es "otros").
+ * Al terminar imprime percentiles por patrón de paso, la duración de los
+ * escenarios por feature y los pasos más lentos.
+ * Los eventos llegan en el hilo que ejecuta el paso, así que sirve en paralelo.
+ */
+public class TimingPlugin implements ConcurrentEventListener {
+    private static final int SLOWEST = 10;
+    private static final Timings.Category[] CATEGORIES = Timings.Category.values();
+
+    private final Map<String, PatternStats> byPattern = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> byFeature = new ConcurrentHashMap<>();
+    private final PriorityQueue<Sample> slowest =
+            new PriorityQueue<>(Comparator.comparingLong(Sample::nanos));
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepStarted.class, event -> Timings.drain());
+        publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::scenarioFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> System.out.println(report()));
+    }
+
+    private void scenarioFinished(TestCaseFinished event) {
+        String uri = event.getTestCase().getUri().toString();
+        byFeature.computeIfAbsent(uri.substring(uri.lastIndexOf('/') + 1), f -> new ConcurrentHistogram(3))
+                .recordValue(event.getResult().getDuration().toNanos());
+    }
+
+    private void stepFinished(TestStepFinished event) {
+        long nanos = event.getResult().getDuration().toNanos();
+        long[] categories = Timings.drain();
+        String pattern = patternOf(event.getTestStep());
+        byPattern.computeIfAbsent(pattern, p -> new PatternStats()).add(nanos, categories);
+
+        synchronized (slowest) {
+            if (slowest.size() < SLOWEST || slowest.peek().nanos() < nanos) {
+                slowest.offer(new Sample(nanos, textOf(event.getTestStep()),
+                        locationOf(event.getTestCase()), categories));
+                if (slowest.size() > SLOWEST) slowest.poll();
+            }
+        }
+    }
+
+    private static String patternOf(TestStep step) {
+        if (step instanceof PickleStepTestStep) {
+            PickleStepTestStep pickleStep = (PickleStepTestStep) step;
+            String pattern = pickleStep.getPattern();
+            return pattern != null ? pattern : pickleStep.getStep().getText();
+        }
+        if (step instanceof HookTestStep) {
+            HookTestStep hook = (HookTestStep) step;
+            return "@" + hook.getHookType() + " " + shortLocation(hook.getCodeLocation());
+        }
+        return step.getCodeLocation();
+    }
+
+    private static String textOf(TestStep step) {
+        if (step instanceof PickleStepTestStep) {
+            PickleStepTestStep pickleStep = (PickleStepTestStep) step;
+            return pickleStep.getStep().getKeyword() + pickleStep.getStep().getText();
+        }
+        return patternOf(step);
+    }
+
+    private static String locationOf(TestCase testCase) {
+        String uri = testCase.getUri().toString();
+        return testCase.getName() + " (" + uri.substring(uri.lastIndexOf('/') + 1)
+                + ":" + testCase.getLocation().getLine() + ")";
+    }
+
+    /** steps.Hooks.setUpBrowser(io.cucumber.java.Scenario) -> Hooks.setUpBrowser */
+    private static String shortLocation(String codeLocation) {
+        int paren = codeLocation.indexOf('(');
+        String method = paren >= 0 ? codeLocation.substring(0, paren) : codeLocation;
+        int dot = method.lastIndexOf('.', method.lastIndexOf('.') - 1);
+        return method.substring(dot + 1);
+    }
+
+    String report() {
+        List<Map.Entry<String, PatternStats>> patterns = new ArrayList<>(byPattern.entrySet());
+        patterns.sort(Comparator.comparingLong(
+                (Map.Entry<String, PatternStats> e) -> e.getValue().totalNanos()).reversed());
+
+        StringBuilder sb = new StringBuilder("\n===== Tiempos por paso (ms) =====\n");
+        sb.append(String.format("%5s %8s %8s %8s %8s %9s  %s  %s%n",
+                "n", "p50", "p90", "p99", "max", "total", categoryHeader(), "paso"));
+        for (Map.Entry<String, PatternStats> e : patterns) {
+            PatternStats stats = e.getValue();
+            Histogram h = stats.histogram;
+            sb.append(String.format("%5d %8.1f %8.1f %8.1f %8.1f %9.1f  %s  %s%n",
+                    h.getTotalCount(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getMaxValue()),
+                    ms(stats.totalNanos()), shares(stats.categoryNanos(), stats.totalNanos()),
+                    e.getKey()));
+        }
+
+        // El navegador se indica para poder comparar ejecuciones con distintos backends
+        sb.append(String.format("%n----- Escenarios por feature (browser=%s) -----%n",
+                ConfigManager.get("browser", "chrome")));
+        sb.append(String.format("%5s %8s %8s %8s %9s  %s%n", "n", "p50", "p90", "max", "total", "feature"));
+        new TreeMap<>(byFeature).forEach((feature, h) -> sb.append(String.format(
+                "%5d %8.1f %8.1f %8.1f %9.1f  %s%n", h.getTotalCount(),
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getMaxValue()),
+                h.getMean() * h.getTotalCount() / 1_000_000.0, feature)));
+
+        List<Sample> top;
+        synchronized (slowest) {
+            top = new ArrayList<>(slowest);
+        }
+        top.sort(Comparator.comparingLong(Sample::nanos).reversed());
+        sb.append(String.format("%n----- %d pasos más lentos -----%n", top.size()));
+        for (Sample s : top) {
+            sb.append(String.format("%9.1f  %s  %s%n%11s%s%n", ms(s.nanos()),
+                    shares(s.categories(), s.nanos()), s.text(), "", s.scenario()));
+        }
+        return sb.toString();
+    }
+
+    private static String categoryHeader() {
+        StringBuilder sb = new StringBuilder();
+        for (Timings.Category c : CATEGORIES) {
+            sb.append(String.format("%9s ", c.label()));
+        }
+        return sb.append(String.format("%9s", "otros")).toString();
+    }
+
+    /** Porcentaje del tiempo del paso en cada categoría; "otros" es lo no atribuido. */
+    private static String shares(long[] categories, long total) {
+        StringBuilder sb = new StringBuilder();
+        long attributed = 0;
+        for (long nanos : categories) {
+            attributed += nanos;
+            sb.append(String.format("%8.0f%% ", percent(nanos, total)));
+        }
+        return sb.append(String.format("%8.0f%%", percent(Math.max(0, total - attributed), total)))
+                .toString();
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : Math.min(100.0, 100.0 * part / total);
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class PatternStats {
+        private final Histogram histogram = new ConcurrentHistogram(3);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder[] categories = new LongAdder[CATEGORIES.length];
+
+        PatternStats() {
+            for (int i = 0; i < categories.length; i++) categories[i] = new LongAdder();
+        }
+
+        void add(long nanos, long[] categoryNanos) {
+            histogram.recordValue(nanos);
+            total.add(nanos);
+            for (int i = 0; i < categories.length; i++) categories[i].add(categoryNanos[i]);
+        }
+
+        long totalNanos() {
+            return total.sum();
+        }
+
+        long[] categoryNanos() {
+            long[] sums = new long[categories.length];
+            for (int i = 0; i < sums.length; i++) sums[i] = categories[i].sum();
+            return sums;
+        }
+    }
+
+    private record Sample(long nanos, String text, String scenario, long[] categories) { }
+}
@@ -5,85 +5,179 @@ import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Scenario;
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
+import utils.BrowserPool;
 import utils.ConfigManager;
+import utils.DomWaiter;
+import utils.DriverFactory;
+import utils.HttpClientPool;
+import utils.JfrEvents;
 import utils.MockServerManager;
-import java.time.Duration;
+import utils.Timings;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Hooks del ciclo de vida de los escenarios.
+ * El driver y el servidor mock son por hilo: en ejecución paralela cada worker
+ * tiene su propio navegador y su propio mock, sin compartir estado.
+ */
 public class Hooks {
-    private static WebDriver driver;
-    private static MockServerManager mockServer;
-    private static final int MOCK_PORT = 8080;
+    private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static final ThreadLocal<MockServerManager> mockServer = new ThreadLocal<>();
+    private static final Queue<MockServerManager> mockServers = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean configuredPortInUse = new AtomicBoolean();
+    private static BrowserPool browserPool;
 
     public static WebDriver getDriver() {
-        return driver;
+        return driver.get();
     }
 
+    /**
+     * Obtiene el servidor mock del worker actual, iniciándolo la primera vez.
+     */
     public static MockServerManager getMockServer() {
-        return mockServer;
+        MockServerManager server = mockServer.get();
+        if (server == null) {
+            server = startMockServer();
+            mockServer.set(server);
+        }
+        return server;
+    }
+
+    /**
+     * El primer mock ocupa el puerto configurado (desplazado por shard.index
+     * para que los shards de una misma máquina no choquen) y publica su URL en
+     * base.url; los demás workers usan un puerto libre para no colisionar.
+     */
+    private static MockServerManager startMockServer() {
+        MockServerManager server = new MockServerManager();
+        boolean primary = configuredPortInUse.compareAndSet(false, true);
+        int port = ConfigManager.getInt("mock.server.port", 8080) + ConfigManager.getInt("shard.index", 0);
+        server.start(primary ? port : 0);
+        mockServers.add(server);
+
+        if (primary) {
+            // Actualizar la configuración dinámicamente con la URL del mock
+            System.setProperty("base.url", server.getBaseUrl());
+            ConfigManager.refresh();
+        }
+        return server;
+    }
+
+    private static synchronized BrowserPool getBrowserPool() {
+        if (browserPool == null) {
+            DriverFactory.Backend backend = DriverFactory.configuredBackend();
+            DriverFactory.prepare(backend);
+            int workers = effectiveWorkers();
+            int size = ConfigManager.getInt("browser.pool.size", 0);
+            if (size <= 0) size = workers;
+            browserPool = new BrowserPool(() -> DriverFactory.create(backend), size,
+                    ConfigManager.getInt("browser.pool.max.uses", 20));
+            // Más sesiones que workers nunca llegarían a usarse a la vez
+            browserPool.warmUp(Math.min(size, workers));
+        }
+        return browserPool;
     }
 
     /**
-     * Inicia el servidor mock antes de todos los tests.
+     * Escenarios que corren a la vez: parallel.workers (0 = número de CPUs)
+     * con ejecución paralela, 1 en serie.
      */
+    private static int effectiveWorkers() {
+        if (!ConfigManager.getBoolean("cucumber.execution.parallel.enabled", false)) return 1;
+        int configured = ConfigManager.getInt("parallel.workers", 0);
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
     @BeforeAll
-    public static void startMockServer() {
-        mockServer = MockServerManager.getInstance();
-        mockServer.start(MOCK_PORT);
+    public static void logConfig() {
+        if (ConfigManager.getBoolean("config.dump", false)) {
+            System.out.println(ConfigManager.dump());
+        }
+    }
 
-        // Actualizar la configuración dinámicamente con la URL del mock
-        System.setProperty("base.url", mockServer.getBaseUrl());
+    /**
+     * Graba eventos JFR de toda la suite cuando jfr.enabled=true.
+     */
+    @BeforeAll
+    public static void startFlightRecording() {
+        JfrEvents.startRecording();
+    }
+
+    @AfterAll
+    public static void dumpFlightRecording() {
+        Path file = JfrEvents.dumpRecording();
+        if (file != null) {
+            System.out.println("Grabación JFR guardada en " + file.toAbsolutePath());
+        }
     }
 
     /**
-     * Detiene el servidor mock después de todos los tests.
+     * Detiene los servidores mock de todos los workers después de todos los tests.
      */
     @AfterAll
-    public static void stopMockServer() {
-        if (mockServer != null) {
-            mockServer.stop();
+    public static void stopMockServers() {
+        MockServerManager server;
+        while ((server = mockServers.poll()) != null) {
+            server.stop();
+        }
+        configuredPortInUse.set(false);
+    }
+
+    /**
+     * Informa del uso del pool de conexiones HTTP de la API.
+     */
+    @AfterAll
+    public static void reportHttpPool() {
+        System.out.println(HttpClientPool.stats());
+    }
+
+    /**
+     * Cierra los navegadores del pool e informa de sus estadísticas y de las esperas de DOM.
+     */
+    @AfterAll
+    public static synchronized void shutdownBrowserPool() {
+        if (browserPool != null) {
+            browserPool.shutdown();
+            browserPool = null;
+            System.out.println(DomWaiter.stats());
         }
     }
 
     @Before("@ui")
     public void setUpBrowser() {
-        // Configurar stub de UI
-        mockServer.setupUiStub();
-
-        WebDriverManager.chromedriver().setup();
-        ChromeOptions opts = new ChromeOptions();
-        if (ConfigManager.getBoolean("headless", true))
-            opts.addArguments("--headless=new");
-        opts.addArguments("--no-sandbox", "--disable-dev-shm-usage",
-                "--window-size=1920,1080");
-        driver = new ChromeDriver(opts);
-        driver.manage().timeouts().implicitlyWait(
-                Duration.ofSeconds(ConfigManager.getInt("implicit.wait", 10)));
+        // La página de la UI la sirve el mock desde que arranca; basta con que exista
+        getMockServer();
+        driver.set(Timings.time(Timings.Category.SETUP, () -> getBrowserPool().lease()));
     }
 
     /**
-     * Limpia los datos del servidor mock antes de cada escenario de API.
+     * Limpia los datos del servidor mock del worker antes de cada escenario de API.
      */
     @Before("@api")
     public void resetMockData() {
-        if (mockServer != null) {
-            mockServer.reset();
-        }
+        getMockServer().reset();
     }
 
     @After("@ui")
     public void tearDown(Scenario scenario) {
-        if (driver != null) {
-            if (scenario.isFailed()) {
-                byte[] ss = ((TakesScreenshot) driver)
-                        .getScreenshotAs(OutputType.BYTES);
-                scenario.attach(ss, "image/png", "screenshot-falla");
+        WebDriver d = driver.get();
+        if (d != null) {
+            try {
+                // HtmlUnit no renderiza: sin captura
+                if (scenario.isFailed() && d instanceof TakesScreenshot) {
+                    byte[] ss = ((TakesScreenshot) d)
+                            .getScreenshotAs(OutputType.BYTES);
+                    scenario.attach(ss, "image/png", "screenshot-falla");
+                }
+            } finally {
+                Timings.time(Timings.Category.SETUP,
+                        () -> getBrowserPool().release(d, scenario.isFailed()));
+                driver.remove();
             }
-            driver.quit();
-            driver = null;
         }
     }
 }
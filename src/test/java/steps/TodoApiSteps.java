@@ -6,177 +6,284 @@ import io.cucumber.java.es.Entonces;
 import io.cucumber.datatable.DataTable;
 import io.restassured.response.Response;
 import utils.ApiClient;
-import utils.MockServerManager;
+import utils.ConfigManager;
+import utils.TaskFixture;
+import utils.TaskStatus;
+import utils.Timings;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TodoApiSteps {
-    private final ApiClient api = new ApiClient();
+    private final ApiClient api = new ApiClient(Hooks.getMockServer().getBaseUrl());
     private Response response;
     private int currentTodoId;
-    private MockServerManager mockServer;
-
-    private MockServerManager getMockServer() {
-        if (mockServer == null) {
-            mockServer = MockServerManager.getInstance();
-        }
-        return mockServer;
-    }
+    private int pagedCount;
+    private int pagesFetched;
+    private boolean pagedInOrder;
+    private String savedEtag;
+    private CompletableFuture<Void> otherClient = CompletableFuture.completedFuture(null);
 
     @Dado("la API de tareas está disponible")
     public void laApiDisponible() {
-        // Configurar stub para verificar disponibilidad
-        getMockServer().setupGetTodosStub(null, "[]", 200);
         Response health = api.getTodos(null);
-        assertNotNull(health);
+        assertEquals(200, health.statusCode());
     }
 
     @Cuando("creo una tarea con título {string}")
     public void creoTareaConTitulo(String titulo) {
-        // Crear tarea en el mock server
-        int id = getMockServer().createTask(titulo, null, "PENDING");
-        String responseBody = getMockServer().toJson(getMockServer().getTaskById(id));
-
-        // Configurar stub para crear tarea
-        getMockServer().setupCreateTodoSuccessStub(responseBody);
-
-        // Realizar la petición
         Map<String, Object> body = new HashMap<>();
         body.put("title", titulo);
         response = api.createTodo(body);
 
         if (response.statusCode() == 201) {
-            currentTodoId = id;
+            currentTodoId = response.jsonPath().getInt("id");
         }
     }
 
     @Cuando("creo una tarea sin título")
     public void creoTareaSinTitulo() {
-        // Configurar stub para error de validación
-        getMockServer().setupCreateTodoErrorStub("titulo es obligatorio", 400);
-
         response = api.createTodo(Map.of("title", ""));
     }
 
     @Cuando("creo una tarea con un título de {int} caracteres")
     public void creoTareaConTituloDe(int n) {
-        // Configurar stub para error de validación
-        getMockServer().setupCreateTodoErrorStub("maximo 100 caracteres", 400);
-
         response = api.createTodo(Map.of("title", "a".repeat(n)));
     }
 
     @Cuando("creo una tarea con título {string} y descripción {string}")
     public void creoTareaConTituloYDesc(String titulo, String desc) {
-        // Verificar si el título está vacío para configurar error
-        if (titulo == null || titulo.trim().isEmpty()) {
-            getMockServer().setupCreateTodoErrorStub("titulo es obligatorio", 400);
-            Map<String, Object> body = new HashMap<>();
-            body.put("title", titulo);
-            if (!desc.isEmpty()) body.put("description", desc);
-            response = api.createTodo(body);
-            return;
-        }
-
-        // Crear tarea en el mock server
-        int id = getMockServer().createTask(titulo, desc.isEmpty() ? null : desc, "PENDING");
-        String responseBody = getMockServer().toJson(getMockServer().getTaskById(id));
-
-        // Configurar stub
-        getMockServer().setupCreateTodoSuccessStub(responseBody);
-
-        // Realizar la petición
         Map<String, Object> body = new HashMap<>();
         body.put("title", titulo);
         if (!desc.isEmpty()) body.put("description", desc);
         response = api.createTodo(body);
 
         if (response.statusCode() == 201) {
-            currentTodoId = id;
+            currentTodoId = response.jsonPath().getInt("id");
         }
     }
 
     @Dado("existe una tarea con título {string}")
     public void existeTarea(String titulo) {
-        // Crear tarea en el mock server
-        int id = getMockServer().createTask(titulo, null, "PENDING");
-
-        // Configurar stub para crear
-        String responseBody = getMockServer().toJson(getMockServer().getTaskById(id));
-        getMockServer().setupCreateTodoSuccessStub(responseBody);
-
-        // Realizar la petición
         Response r = api.createTodo(Map.of("title", titulo));
         assertEquals(201, r.statusCode());
-        currentTodoId = id;
+        currentTodoId = r.jsonPath().getInt("id");
     }
 
     @Dado("existen las siguientes tareas:")
     public void existenTareas(DataTable table) {
+        // Todas las filas viajan en una sola petición, con su estado final
+        List<Map<String, Object>> bodies = new ArrayList<>();
         for (Map<String, String> row : table.asMaps()) {
-            String titulo = row.get("titulo");
-            String estado = row.get("estado");
+            bodies.add(Map.of("title", row.get("titulo"), "status", row.get("estado")));
+        }
+        Response r = api.createTodos(bodies);
+        assertEquals(200, r.statusCode());
+
+        List<Integer> codes = r.jsonPath().getList("status", Integer.class);
+        assertEquals(bodies.size(), codes.size());
+        for (int i = 0; i < codes.size(); i++) {
+            assertEquals(201, codes.get(i), "Fila " + (i + 1) + ": " + r.jsonPath().getString("[" + i + "].body"));
+            assertEquals(bodies.get(i).get("status"), r.jsonPath().getString("[" + i + "].body.status"));
+        }
+    }
 
-            // Crear tarea en el mock server
-            int id = getMockServer().createTask(titulo, null, estado);
+    @Dado("existen {int} tareas con {int}% DONE")
+    public void existenTareasGeneradas(int n, int porcentajeDone) {
+        generarTareas(TaskFixture.of(n, porcentajeDone));
+    }
 
-            // Configurar stub
-            String responseBody = getMockServer().toJson(getMockServer().getTaskById(id));
-            getMockServer().setupCreateTodoSuccessStub(responseBody);
+    /**
+     * Fixture con parámetros explícitos; las claves que falten toman el valor de fixture.*.
+     * Longitudes como rango "min..max".
+     */
+    @Dado("existen {int} tareas generadas con:")
+    public void existenTareasGeneradasCon(int n, DataTable table) {
+        Map<String, String> params = table.asMap(String.class, String.class);
+        TaskFixture fixture = TaskFixture.of(n, Integer.parseInt(params.getOrDefault("DONE %", "0")));
+        if (params.containsKey("semilla")) fixture = fixture.withSeed(Long.parseLong(params.get("semilla")));
+        if (params.containsKey("título")) {
+            int[] r = rango(params.get("título"));
+            fixture = fixture.withTitleLength(r[0], r[1]);
+        }
+        if (params.containsKey("descripción")) {
+            int[] r = rango(params.get("descripción"));
+            fixture = fixture.withDescriptionLength(r[0], r[1]);
+        }
+        generarTareas(fixture);
+    }
 
-            Response r = api.createTodo(Map.of("title", titulo));
-            assertEquals(201, r.statusCode());
+    @Entonces("no se puede generar un fixture con {int}% DONE")
+    public void fixtureRechazado(int porcentajeDone) {
+        assertThrows(IllegalArgumentException.class, () -> TaskFixture.of(10, porcentajeDone));
+    }
 
-            if ("DONE".equals(estado)) {
-                getMockServer().updateTaskStatus(id, "DONE");
-                getMockServer().setupUpdateTodoStub(id,
-                        getMockServer().toJson(getMockServer().getTaskById(id)), 200);
-                api.updateTodoStatus(id, "DONE");
-            }
-        }
+    private static int[] rango(String value) {
+        String[] parts = value.split("\\.\\.");
+        return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[parts.length - 1].trim())};
+    }
+
+    /**
+     * Carga el fixture directamente en el almacén del mock, sin pasar por la API.
+     */
+    private void generarTareas(TaskFixture fixture) {
+        long start = System.nanoTime();
+        Timings.time(Timings.Category.SETUP, () -> Hooks.getMockServer().generateTasks(fixture));
+        System.out.printf("Fixture: %d tareas (%d DONE, semilla %d) en %d ms%n", fixture.count(),
+                fixture.expected(TaskStatus.DONE), fixture.seed(), (System.nanoTime() - start) / 1_000_000);
     }
 
     @Cuando("marco la tarea como completada")
     public void marcoCompletada() {
-        // Actualizar en el mock server
-        getMockServer().updateTaskStatus(currentTodoId, "DONE");
+        response = api.updateTodoStatus(currentTodoId, "DONE");
+    }
 
-        // Configurar stub
-        String responseBody = getMockServer().toJson(getMockServer().getTaskById(currentTodoId));
-        getMockServer().setupUpdateTodoStub(currentTodoId, responseBody, 200);
+    @Cuando("marco como completadas todas las tareas pendientes")
+    public void marcoCompletadasPendientes() {
+        Map<Integer, String> statusById = new LinkedHashMap<>();
+        for (Integer id : api.getTodos("PENDING").jsonPath().getList("id", Integer.class)) {
+            statusById.put(id, "DONE");
+        }
+        response = api.updateStatuses(statusById);
+        assertEquals(List.of(), response.jsonPath().getList("findAll { it.status != 200 }"));
+    }
 
-        response = api.updateTodoStatus(currentTodoId, "DONE");
+    @Dado("guardo la versión de la tarea")
+    public void guardoVersion() {
+        Response r = api.getTodoById(currentTodoId);
+        assertEquals(200, r.statusCode());
+        savedEtag = r.getHeader("ETag");
+        assertNotNull(savedEtag, "La respuesta no trae ETag");
     }
 
-    @Cuando("elimino la tarea")
-    public void eliminoTarea() {
-        // Eliminar del mock server
-        getMockServer().deleteTask(currentTodoId);
+    @Cuando("marco la tarea como {string} con la versión guardada")
+    public void marcoConVersionGuardada(String estado) {
+        response = api.updateTodoStatusIfMatch(currentTodoId, estado, savedEtag);
+    }
+
+    /**
+     * Cada cliente invierte el estado leyendo el actual: sin If-Match dos
+     * clientes que leen lo mismo escriben lo mismo y se pierde un cambio.
+     */
+    @Cuando("{int} clientes alternan el estado de la tarea {int} veces cada uno")
+    public void clientesAlternan(int clientes, int veces) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clientes);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int c = 0; c < clientes; c++) {
+                results.add(pool.submit(() -> {
+                    List<Integer> codes = new ArrayList<>();
+                    for (int i = 0; i < veces; i++) {
+                        codes.add(api.updateTodoStatusWithRetry(currentTodoId,
+                                s -> "DONE".equals(s) ? "PENDING" : "DONE", 100).statusCode());
+                    }
+                    return codes;
+                }));
+            }
+            for (Future<List<Integer>> result : results) {
+                assertTrue(result.get().stream().allMatch(code -> code == 200), "Códigos: " + result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        response = api.getTodoById(currentTodoId);
+    }
+
+    @Entonces("la tarea tiene versión {int}")
+    public void tareaTieneVersion(int version) {
+        assertEquals(version, response.jsonPath().getInt("version"));
+        // Jetty añade "--gzip" al ETag de las respuestas comprimidas (y lo quita del If-Match)
+        assertEquals("\"" + version + "\"", response.getHeader("ETag").replace("--gzip", ""));
+    }
+
+    @Cuando("otro cliente marca la tarea como {string} dentro de {int} ms")
+    public void otroClienteMarca(String status, int millis) {
+        int id = currentTodoId;
+        otherClient = CompletableFuture.runAsync(() -> assertEquals(200, api.updateTodoStatus(id, status).statusCode()),
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+
+    @Cuando("otro cliente elimina la tarea dentro de {int} ms")
+    public void otroClienteElimina(int millis) {
+        int id = currentTodoId;
+        otherClient = CompletableFuture.runAsync(() -> assertEquals(204, api.deleteTodo(id).statusCode()),
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
 
-        // Configurar stub para delete exitoso
-        getMockServer().setupDeleteTodoStub(currentTodoId, 204);
+    @Entonces("espero a que la tarea tenga estado {string}")
+    public void esperoEstado(String status) {
+        assertTrue(api.awaitTodo(currentTodoId, todo -> todo != null && status.equals(todo.get("status")), awaitTimeout()),
+                "La tarea no llegó a " + status);
+        otherClient.join();
+        response = api.getTodoById(currentTodoId);
+    }
 
+    @Cuando("elimino la tarea")
+    public void eliminoTarea() {
         response = api.deleteTodo(currentTodoId);
     }
 
     @Cuando("elimino una tarea con id {int}")
     public void eliminoTareaConId(int id) {
-        // Configurar stub para tarea no encontrada
-        getMockServer().setupDeleteTodoStub(id, 404);
-
         response = api.deleteTodo(id);
     }
 
     @Cuando("consulto las tareas con filtro {string}")
     public void consultoConFiltro(String filtro) {
-        // Configurar stub con tareas filtradas
-        List<Map<String, Object>> filteredTasks = getMockServer().getTasksByStatus(filtro);
-        String responseBody = getMockServer().toJson(filteredTasks);
-        getMockServer().setupGetTodosStub(filtro, responseBody, 200);
-
         response = api.getTodos(filtro);
     }
 
+    @Cuando("recorro las tareas con filtro {string} en páginas de {int}")
+    public void recorroConFiltroEnPaginas(String filtro, int tamano) {
+        recorrerPaginas(filtro, tamano);
+    }
+
+    @Cuando("recorro todas las tareas en páginas de {int}")
+    public void recorroTodasEnPaginas(int tamano) {
+        recorrerPaginas(null, tamano);
+    }
+
+    /**
+     * Cuenta las tareas a medida que llegan las páginas, sin acumularlas.
+     */
+    private void recorrerPaginas(String filtro, int tamano) {
+        ApiClient.TodoPages pages = api.pageTodos(filtro, tamano);
+        pagedCount = 0;
+        pagedInOrder = true;
+        int lastId = 0;
+        while (pages.hasNext()) {
+            Map<String, Object> tarea = pages.next();
+            int id = ((Number) tarea.get("id")).intValue();
+            if (id <= lastId) pagedInOrder = false;
+            if (filtro != null) assertEquals(filtro, tarea.get("status"));
+            lastId = id;
+            pagedCount++;
+        }
+        pagesFetched = pages.getPagesFetched();
+    }
+
+    @Entonces("se recorren {int} tareas en {int} páginas")
+    public void seRecorrenTareasEnPaginas(int tareas, int paginas) {
+        assertEquals(tareas, pagedCount);
+        assertEquals(paginas, pagesFetched);
+        assertTrue(pagedInOrder, "Las páginas no llegaron ordenadas por id");
+    }
+
+    @Entonces("todos los títulos miden entre {int} y {int} caracteres")
+    public void titulosMidenEntre(int min, int max) {
+        ApiClient.TodoPages pages = api.pageTodos(null, 1000);
+        while (pages.hasNext()) {
+            String title = (String) pages.next().get("title");
+            assertTrue(title.length() >= min && title.length() <= max,
+                    "Título de " + title.length() + " caracteres: " + title);
+        }
+    }
+
     @Entonces("la respuesta tiene código {int}")
     public void respuestaCodigo(int codigo) {
         assertEquals(codigo, response.statusCode());
@@ -201,10 +308,13 @@ public class TodoApiSteps {
 
     @Entonces("la tarea ya no existe en el sistema")
     public void tareaNoExiste() {
-        // Configurar stub para tarea no encontrada
-        getMockServer().setupGetTodoByIdStub(currentTodoId, "{\"message\": \"Tarea no encontrada\"}", 404);
+        // Si el borrado lo hace otro cliente, se espera al evento en lugar de leer una sola vez
+        assertTrue(api.awaitTodo(currentTodoId, Objects::isNull, awaitTimeout()), "La tarea sigue existiendo");
+        otherClient.join();
+    }
 
-        assertEquals(404, api.getTodoById(currentTodoId).statusCode());
+    private static Duration awaitTimeout() {
+        return Duration.ofMillis(ConfigManager.getInt("api.await.timeout.ms", 5000));
     }
 
     @Entonces("se retornan {int} tareas")
@@ -0,0 +1,104 @@
+package steps;
+
+import io.cucumber.java.After;
+import io.cucumber.java.es.Cuando;
+import io.cucumber.java.es.Dado;
+import io.cucumber.java.es.Entonces;
+import utils.MockServerManager;
+import utils.Task;
+import utils.TaskStatus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pasos sobre un mock con persistencia propia (snapshot + journal en un
+ * directorio temporal), aparte del mock del worker, para poder tirarlo y
+ * reiniciarlo.
+ */
+public class TodoStoreSteps {
+    private Path dir;
+    private MockServerManager store;
+    private long journalSize;
+
+    @Dado("un mock persistente con {int} tareas en el snapshot")
+    public void mockPersistente(int count) throws IOException {
+        dir = Files.createTempDirectory("mock-store");
+        store = new MockServerManager();
+        store.start(0, dir);
+        for (int i = 1; i <= count; i++) {
+            store.createTask("Tarea " + i, "", TaskStatus.PENDING);
+        }
+        // Snapshot base: el journal queda vacío
+        store.saveSnapshot(dir.resolve("tasks.snap"));
+    }
+
+    @Dado("marco la tarea {int} del mock persistente como {string}")
+    public void marcoTareaPersistente(int id, String status) {
+        assertTrue(store.updateTaskStatus(id, status), "No se pudo actualizar la tarea " + id);
+    }
+
+    /**
+     * El snapshot nuevo ya está renombrado pero el journal aún no se vació:
+     * al reiniciar se reproducen cambios que el snapshot ya contiene.
+     */
+    @Dado("el mock persistente cae justo después de escribir el snapshot")
+    public void caeTrasSnapshot() throws IOException {
+        Path written = dir.resolve("tasks.snap.next");
+        store.saveSnapshot(written);
+        store.crash();
+        Files.move(written, dir.resolve("tasks.snap"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Dado("el journal del mock persistente termina con un registro a medias")
+    public void registroAMedias() throws IOException {
+        Path journal = dir.resolve("tasks.journal");
+        journalSize = Files.size(journal);
+        // Cabecera de un registro de 64 bytes del que solo llegaron 3
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(11).putInt(64).putInt(0).put(new byte[]{2, 0, 0}).flip());
+        }
+    }
+
+    @Cuando("el mock persistente se reinicia")
+    public void reinicia() {
+        store = new MockServerManager();
+        store.start(0, dir);
+    }
+
+    @Entonces("el mock persistente tiene {int} tareas")
+    public void tieneTareas(int count) {
+        assertEquals(count, store.getAllTasks().size());
+    }
+
+    @Entonces("la tarea {int} del mock persistente tiene estado {string} y versión {int}")
+    public void tareaPersistente(int id, String status, int version) {
+        Task task = store.getTaskById(id);
+        assertNotNull(task, "La tarea " + id + " no se recuperó");
+        assertEquals(status, task.status().name());
+        assertEquals(version, task.version());
+    }
+
+    @Entonces("el journal del mock persistente ya no tiene el registro a medias")
+    public void journalRecortado() throws IOException {
+        assertEquals(journalSize, Files.size(dir.resolve("tasks.journal")));
+    }
+
+    @After("@persistencia")
+    public void limpiar() throws IOException {
+        if (store != null) store.stop();
+        if (dir == null) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
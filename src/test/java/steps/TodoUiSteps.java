@@ -8,9 +8,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class TodoUiSteps {
     private TodoPage todoPage;
+    private String lastTitle;
 
     private TodoPage page() {
-        if (todoPage == null) todoPage = new TodoPage(Hooks.getDriver());
+        if (todoPage == null) todoPage = new TodoPage(Hooks.getDriver(),
+                Hooks.getMockServer().getBaseUrl());
         return todoPage;
     }
 
@@ -29,10 +31,17 @@ public class TodoUiSteps {
     @Entonces("veo la tarea {string} en la lista")
     public void veoTarea(String t) {
         assertTrue(page().isTodoVisible(t), "Tarea no visible: " + t);
+        lastTitle = t;
     }
 
     @Entonces("la tarea aparece con estado pendiente")
-    public void estadoPendiente() { /* verificado implícitamente */ }
+    public void estadoPendiente() {
+        TodoPage.TodoItem item = page().getTodos().stream()
+                .filter(i -> i.title().equals(lastTitle))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Tarea no listada: " + lastTitle));
+        assertFalse(item.completed(), "La tarea no está pendiente: " + lastTitle);
+    }
 
     @Dado("existe la tarea {string} en la lista")
     public void existeTarea(String t) {
@@ -51,7 +60,7 @@ public class TodoUiSteps {
     public void eliminoUI(String t) { page().deleteTodo(t); }
 
     @Entonces("la tarea {string} ya no aparece en la lista")
-    public void noAparece(String t) { assertFalse(page().isTodoVisible(t)); }
+    public void noAparece(String t) { assertTrue(page().isTodoAbsent(t), "Tarea aún visible: " + t); }
 
     @Entonces("veo un mensaje de error {string}")
     public void mensajeError(String msg) {
@@ -1,47 +1,428 @@
 package utils;
 
 import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class ApiClient {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /** Secuencia del feed de cambios leída antes que el estado de la respuesta. */
+    public static final String EVENT_SEQ_HEADER = "X-Event-Seq";
+    private static final String EVENTS_PATH = "/events";
+    private static final long MAX_POLL_MS = 10_000;
+    private static final long POLL_RETRY_MS = 1_000;
+    private static final String BATCH_PATH = "/batch";
+    private static final long RETRY_BASE_MICROS = 500;
+    private static final long RETRY_MAX_MICROS = 50_000;
+
     private final String baseUrl;
     private final String basePath;
+    private final RequestSpecification spec;
 
     public ApiClient() {
-        this.baseUrl = ConfigManager.get("base.url", "http://localhost:8080");
+        this(ConfigManager.get("base.url", "http://localhost:8080"));
+    }
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
         this.basePath = ConfigManager.get("api.base.path", "/api/todos");
+        // Se construye una vez; cada petición solo la copia y añade su conexión del pool
+        this.spec = new RequestSpecBuilder()
+                .setBaseUri(baseUrl).setBasePath(basePath)
+                .setContentType(ContentType.JSON).setAccept(ContentType.JSON)
+                .build();
     }
 
     private RequestSpecification baseRequest() {
-        return RestAssured.given()
-                .baseUri(baseUrl).basePath(basePath)
-                .contentType(ContentType.JSON).accept(ContentType.JSON)
+        return RestAssured.given(spec)
+                .config(HttpClientPool.restAssuredConfig())
                 .log().ifValidationFails();
     }
 
     public Response createTodo(Map<String, Object> body) {
-        return baseRequest().body(body).post();
+        return execute("POST", "", () -> baseRequest().body(body).post());
+    }
+
+    /**
+     * Crea varias tareas en una sola petición; la respuesta es un array con
+     * {@code status} y {@code body} de cada tarea, en el mismo orden.
+     */
+    public Response createTodos(List<Map<String, Object>> bodies) {
+        return execute("POST", BATCH_PATH, () -> baseRequest().body(bodies).post(BATCH_PATH));
+    }
+
+    /**
+     * Cambia el estado de varias tareas en una sola petición, en el orden del mapa.
+     */
+    public Response updateStatuses(Map<Integer, String> statusById) {
+        List<Map<String, Object>> body = new ArrayList<>(statusById.size());
+        statusById.forEach((id, status) -> body.add(Map.of("id", id, "status", status)));
+        return execute("PATCH", BATCH_PATH, () -> baseRequest().body(body).patch(BATCH_PATH));
     }
 
     public Response getTodos(String statusFilter) {
         RequestSpecification req = baseRequest();
         if (statusFilter != null && !statusFilter.isEmpty())
             req.queryParam("status", statusFilter);
-        return req.get();
+        return execute("GET", "", req::get);
+    }
+
+    /**
+     * Pide una página del listado. El cursor de la siguiente página viene en
+     * la cabecera {@value #NEXT_CURSOR_HEADER} y falta en la última.
+     */
+    public Response getTodosPage(String statusFilter, int limit, String cursor) {
+        RequestSpecification req = baseRequest().queryParam("limit", limit);
+        if (statusFilter != null && !statusFilter.isEmpty())
+            req.queryParam("status", statusFilter);
+        if (cursor != null)
+            req.queryParam("cursor", cursor);
+        return execute("GET", "", req::get);
+    }
+
+    /**
+     * Recorre el listado página a página: cada página se pide solo cuando se
+     * consume la anterior, así nunca hay más de una en memoria.
+     */
+    public TodoPages pageTodos(String statusFilter, int pageSize) {
+        return new TodoPages(statusFilter, pageSize);
     }
 
     public Response getTodoById(int id) {
-        return baseRequest().get("/" + id);
+        return execute("GET", "/" + id, () -> baseRequest().get("/" + id));
     }
 
     public Response updateTodoStatus(int id, String status) {
-        return baseRequest().body(Map.of("status", status)).patch("/" + id);
+        return execute("PATCH", "/" + id, () -> baseRequest().body(Map.of("status", status)).patch("/" + id));
+    }
+
+    /**
+     * Cambia el estado solo si la tarea sigue en la versión de {@code etag};
+     * si otro cliente la cambió antes, la respuesta es 412 con la tarea actual
+     * en {@code current} y su ETag.
+     */
+    public Response updateTodoStatusIfMatch(int id, String status, String etag) {
+        return execute("PATCH", "/" + id, () -> baseRequest().header("If-Match", etag)
+                .body(Map.of("status", status)).patch("/" + id));
+    }
+
+    /**
+     * Lectura-modificación-escritura sin perder cambios concurrentes: calcula el
+     * nuevo estado a partir del actual y lo envía con If-Match. Ante un 412 vuelve
+     * a calcularlo con la tarea que trae el propio 412 (sin otra lectura), tras
+     * un backoff exponencial con jitter para que los clientes no choquen en bucle.
+     * Devuelve la última respuesta: 200 si se aplicó, 412 si se agotaron los intentos.
+     */
+    public Response updateTodoStatusWithRetry(int id, UnaryOperator<String> change, int maxAttempts) {
+        Response current = getTodoById(id);
+        if (current.statusCode() != 200) return current;
+        String etag = current.getHeader("ETag");
+        String status = current.jsonPath().getString("status");
+        long backoffMicros = RETRY_BASE_MICROS;
+        for (int attempt = 1; ; attempt++) {
+            Response response = updateTodoStatusIfMatch(id, change.apply(status), etag);
+            if (response.statusCode() != 412 || attempt >= maxAttempts) {
+                return response;
+            }
+            etag = response.getHeader("ETag");
+            status = response.jsonPath().getString("current.status");
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoffMicros + 1) * 1000);
+            backoffMicros = Math.min(RETRY_MAX_MICROS, backoffMicros * 2);
+        }
     }
 
     public Response deleteTodo(int id) {
-        return baseRequest().delete("/" + id);
+        return execute("DELETE", "/" + id, () -> baseRequest().delete("/" + id));
+    }
+
+    /**
+     * Ejecuta la petición y lee el cuerpo en el momento: así la conexión vuelve
+     * al pool aunque quien llama solo mire el código de estado. RestAssured
+     * conserva el cuerpo leído. El tiempo cuenta como HTTP en {@link Timings}
+     * y, si hay grabación JFR, queda un evento {@link JfrEvents.ApiRequest}.
+     */
+    private Response execute(String method, String path, Supplier<Response> request) {
+        JfrEvents.ApiRequest event = new JfrEvents.ApiRequest();
+        event.begin();
+        long start = Timings.start();
+        Response response = null;
+        byte[] body = null;
+        try {
+            response = request.get();
+            body = response.asByteArray();
+            return response;
+        } finally {
+            Timings.record(Timings.Category.HTTP, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = method;
+                event.path = basePath + path;
+                if (response != null) event.status = response.statusCode();
+                if (body != null) event.bytes = body.length;
+                event.commit();
+            }
+        }
+    }
+
+    // ================== Variantes asíncronas (java.net.http) ==================
+
+    public CompletableFuture<HttpResponse<String>> createTodoAsync(Map<String, Object> body) {
+        return sendAsync("POST", "", body);
+    }
+
+    public CompletableFuture<HttpResponse<String>> getTodosAsync(String statusFilter) {
+        String query = statusFilter != null && !statusFilter.isEmpty()
+                ? "?status=" + URLEncoder.encode(statusFilter, StandardCharsets.UTF_8) : "";
+        return sendAsync("GET", query, null);
+    }
+
+    public CompletableFuture<HttpResponse<String>> getTodoByIdAsync(int id) {
+        return sendAsync("GET", "/" + id, null);
+    }
+
+    public CompletableFuture<HttpResponse<String>> updateTodoStatusAsync(int id, String status) {
+        return sendAsync("PATCH", "/" + id, Map.of("status", status));
+    }
+
+    public CompletableFuture<HttpResponse<String>> deleteTodoAsync(int id) {
+        return sendAsync("DELETE", "/" + id, null);
+    }
+
+    /**
+     * Como {@link #execute}: el tiempo hasta la respuesta cuenta como HTTP para
+     * el hilo que lanza la petición y el evento JFR lleva los bytes del cuerpo.
+     */
+    private CompletableFuture<HttpResponse<String>> sendAsync(String method, String pathAndQuery, Object body) {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(new JsonWriter(128).value(body).toByteArray());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + basePath + pathAndQuery))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .method(method, publisher)
+                .build();
+        Timings.Recorder timings = Timings.recorder();
+        JfrEvents.ApiRequest event = new JfrEvents.ApiRequest();
+        event.begin();
+        long start = Timings.start();
+        return HttpClientPool.asyncClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    timings.record(Timings.Category.HTTP, start);
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.method = method;
+                        event.path = basePath + pathAndQuery;
+                        if (response != null) {
+                            event.status = response.statusCode();
+                            // Bytes del cuerpo, no caracteres UTF-16 del String
+                            event.bytes = response.body().getBytes(StandardCharsets.UTF_8).length;
+                        }
+                        event.commit();
+                    }
+                });
+    }
+
+    // ================== Feed de cambios (server-sent events) ==================
+
+    /**
+     * Evento del feed: {@code type} es created, updated, deleted o reset y
+     * {@code task} la tarea tras el cambio (la eliminada en deleted, vacía en reset).
+     */
+    public record TaskEvent(long seq, String type, Map<String, Object> task) {
+        public int id() {
+            Object id = task.get("id");
+            return id instanceof Number ? ((Number) id).intValue() : 0;
+        }
+
+        public int version() {
+            Object version = task.get("version");
+            return version instanceof Number ? ((Number) version).intValue() : 0;
+        }
+    }
+
+    /**
+     * Espera a que la tarea cumpla la condición, que recibe null si no existe.
+     * Lee la tarea una vez y después solo aplica los eventos posteriores a esa
+     * lectura; descarta los que traen una versión ya vista (el feed puede
+     * entregar dos cambios cruzados en otro orden) y vuelve a leer tras un reset
+     * o si el feed se desbordó. Devuelve false si vence el plazo.
+     */
+    public boolean awaitTodo(int id, Predicate<Map<String, Object>> condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Response read = getTodoById(id);
+            long cursor = eventSeq(read, id);
+            Map<String, Object> state = read.statusCode() == 200 ? read.jsonPath().getMap("$") : null;
+            int version = state == null ? 0 : ((Number) state.get("version")).intValue();
+            if (condition.test(state)) return true;
+            boolean reread = false;
+            while (!reread) {
+                if (remainingMillis(deadline) <= 0) return false;
+                List<TaskEvent> batch = pollEvents(cursor, remainingMillis(deadline));
+                if (batch == null) break;
+                for (TaskEvent event : batch) {
+                    cursor = event.seq();
+                    if ("reset".equals(event.type())) {
+                        reread = true;
+                        break;
+                    }
+                    if (event.id() != id) continue;
+                    // El borrado trae la versión de la tarea eliminada; los ids no se reutilizan salvo tras un reset
+                    boolean deleted = "deleted".equals(event.type());
+                    if (!deleted && event.version() <= version) continue;
+                    version = deleted ? Integer.MAX_VALUE : event.version();
+                    state = deleted ? null : event.task();
+                    if (condition.test(state)) return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Posición del feed en la que se hizo la lectura. Sin ella no se sabe
+     * desde qué evento escuchar, así que cualquier otra respuesta es un fallo.
+     */
+    private static long eventSeq(Response read, int id) {
+        if (read.statusCode() != 200 && read.statusCode() != 404) {
+            throw new IllegalStateException("No se pudo leer la tarea " + id + ": código "
+                    + read.statusCode() + ", " + read.asString());
+        }
+        String seq = read.getHeader(EVENT_SEQ_HEADER);
+        if (seq == null) {
+            throw new IllegalStateException("La lectura de la tarea " + id + " no trae la cabecera "
+                    + EVENT_SEQ_HEADER + " (¿el servidor no publica el feed de cambios?)");
+        }
+        try {
+            return Long.parseLong(seq.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Cabecera " + EVENT_SEQ_HEADER + " no numérica: " + seq, e);
+        }
+    }
+
+    /**
+     * Una vuelta de long-poll: eventos posteriores a {@code since}, esperando
+     * como mucho {@code waitMillis}. Null si el servidor responde 410. Con 503
+     * (demasiadas esperas en el servidor) aguarda lo que pide Retry-After, dentro
+     * de {@code waitMillis}, y devuelve una vuelta vacía.
+     */
+    private List<TaskEvent> pollEvents(long since, long waitMillis) {
+        long wait = Math.max(0, Math.min(waitMillis, MAX_POLL_MS));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + basePath + EVENTS_PATH
+                        + "?since=" + since + "&timeout=" + wait))
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofMillis(wait + 5_000))
+                .GET()
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = HttpClientPool.asyncClient().send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera de eventos interrumpida", e);
+        }
+        if (response.statusCode() == 410) return null;
+        if (response.statusCode() == 503 && response.headers().firstValue("Retry-After").isPresent()) {
+            long retry = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1000;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(wait, Math.min(retry, POLL_RETRY_MS))));
+            return List.of();
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Feed rechazado con código " + response.statusCode() + ": " + response.body());
+        }
+        return parseEvents(response.body());
+    }
+
+    /** Formato server-sent events: bloques {@code id/event/data} separados por una línea vacía. */
+    static List<TaskEvent> parseEvents(String body) {
+        List<TaskEvent> events = new ArrayList<>();
+        for (String block : body.split("\n\n")) {
+            long seq = -1;
+            String type = null;
+            String data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id: ")) seq = Long.parseLong(line.substring(4));
+                else if (line.startsWith("event: ")) type = line.substring(7);
+                else if (line.startsWith("data: ")) data = line.substring(6);
+            }
+            if (seq >= 0 && type != null) {
+                Map<String, Object> task = data == null ? Map.of() : JsonPath.from(data).getMap("$");
+                events.add(new TaskEvent(seq, type, task));
+            }
+        }
+        return events;
+    }
+
+    private static long remainingMillis(long deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    public class TodoPages implements Iterator<Map<String, Object>> {
+        private final String statusFilter;
+        private final int pageSize;
+        private Iterator<Map<String, Object>> current = List.<Map<String, Object>>of().iterator();
+        private String cursor;
+        private boolean lastPage;
+        private int pagesFetched;
+
+        private TodoPages(String statusFilter, int pageSize) {
+            this.statusFilter = statusFilter;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !lastPage) {
+                fetchNextPage();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        public int getPagesFetched() {
+            return pagesFetched;
+        }
+
+        private void fetchNextPage() {
+            Response page = getTodosPage(statusFilter, pageSize, cursor);
+            if (page.statusCode() != 200) {
+                throw new IllegalStateException("Página rechazada con código "
+                        + page.statusCode() + ": " + page.asString());
+            }
+            pagesFetched++;
+            List<Map<String, Object>> items = page.jsonPath().getList("$");
+            current = items.iterator();
+            cursor = page.getHeader(NEXT_CURSOR_HEADER);
+            lastPage = cursor == null;
+        }
     }
 }
@@ -0,0 +1,165 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool acotado de sesiones de navegador reutilizables entre escenarios.
+ * Una sesión se limpia al devolverla (cookies, storage, about:blank) y se
+ * recicla tras {@code maxUses} usos o ante cualquier fallo del escenario.
+ */
+public class BrowserPool {
+    // Cada cuánto vuelve a mirar quien espera: un descarte libera hueco sin dejar sesión ociosa
+    private static final long WAIT_SLICE_MS = 50;
+
+    private final Supplier<WebDriver> factory;
+    private final int maxUses;
+    private final Semaphore slots;
+    private final BlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, Integer> uses = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong warmed = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong launchNanos = new AtomicLong();
+    private final AtomicLong maxLaunchNanos = new AtomicLong();
+
+    public BrowserPool(Supplier<WebDriver> factory, int maxSize, int maxUses) {
+        this.factory = factory;
+        this.maxUses = maxUses;
+        this.slots = new Semaphore(maxSize);
+    }
+
+    /**
+     * Abre hasta {@code count} sesiones en segundo plano, cada una en su hueco,
+     * para que los primeros escenarios no paguen el arranque del navegador.
+     * Si alguna falla se libera su hueco y el error aparecerá en {@link #lease()}.
+     */
+    public void warmUp(int count) {
+        for (int i = 0; i < count && slots.tryAcquire(); i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    WebDriver driver = launch();
+                    warmed.incrementAndGet();
+                    idle.offerLast(driver);
+                } catch (RuntimeException e) {
+                    slots.release();
+                }
+            }, "browser-warmup-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Entrega una sesión ociosa si la hay; si no, lanza una nueva mientras
+     * quede hueco en el pool, o espera a que otro worker devuelva la suya o
+     * descarte una (lo que deja un hueco libre).
+     */
+    public WebDriver lease() {
+        try {
+            while (true) {
+                WebDriver driver = idle.pollFirst();
+                if (driver == null && slots.tryAcquire()) {
+                    misses.incrementAndGet();
+                    try {
+                        return launch();
+                    } catch (RuntimeException e) {
+                        slots.release();
+                        throw e;
+                    }
+                }
+                if (driver == null) {
+                    driver = idle.pollFirst(WAIT_SLICE_MS, TimeUnit.MILLISECONDS);
+                }
+                if (driver != null) {
+                    hits.incrementAndGet();
+                    return driver;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando un navegador del pool", e);
+        }
+    }
+
+    /**
+     * Devuelve una sesión al pool. Si el escenario falló o la sesión agotó
+     * sus usos se cierra en lugar de reutilizarse.
+     */
+    public void release(WebDriver driver, boolean failed) {
+        int used = uses.merge(driver, 1, Integer::sum);
+        if (failed || used >= maxUses || !reset(driver)) {
+            recycled.incrementAndGet();
+            discard(driver);
+            return;
+        }
+        // LIFO: la sesión usada más recientemente es la más "caliente"
+        idle.offerFirst(driver);
+    }
+
+    /**
+     * Cierra todas las sesiones ociosas e imprime las estadísticas del pool.
+     */
+    public void shutdown() {
+        WebDriver driver;
+        while ((driver = idle.pollFirst()) != null) {
+            discard(driver);
+        }
+        System.out.println(stats());
+    }
+
+    public String stats() {
+        long launches = misses.get() + warmed.get();
+        return String.format("Browser pool: hits=%d misses=%d precalentadas=%d reciclados=%d "
+                        + "lanzamiento medio=%d ms max=%d ms",
+                hits.get(), misses.get(), warmed.get(), recycled.get(),
+                launches == 0 ? 0 : launchNanos.get() / launches / 1_000_000,
+                maxLaunchNanos.get() / 1_000_000);
+    }
+
+    private WebDriver launch() {
+        long start = System.nanoTime();
+        WebDriver driver = factory.get();
+        long elapsed = System.nanoTime() - start;
+        launchNanos.addAndGet(elapsed);
+        maxLaunchNanos.accumulateAndGet(elapsed, Math::max);
+        uses.put(driver, 0);
+        return driver;
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            // El storage solo es accesible desde el origen de la app, antes de salir a about:blank
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(
+                        "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            }
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void discard(WebDriver driver) {
+        uses.remove(driver);
+        slots.release();
+        try {
+            driver.quit();
+        } catch (RuntimeException ignored) {
+            // la sesión ya estaba rota; el hueco queda libre igualmente
+        }
+    }
+}
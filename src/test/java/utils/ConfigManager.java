@@ -2,26 +2,27 @@ package utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
+/**
+ * Configuración resuelta una sola vez en una instantánea inmutable.
+ * Capas, de menor a mayor prioridad: {@code config.properties},
+ * {@code config-<perfil>.properties} (perfil en {@code config.profile} o
+ * {@code CONFIG_PROFILE}), propiedades de sistema y variables de entorno
+ * ({@code base.url} -> {@code BASE_URL}).
+ * Las claves que no están en los ficheros se buscan en las capas superiores
+ * en cada consulta, sin guardarlas en la instantánea.
+ * Quien cambie una propiedad de sistema en caliente debe llamar a {@link #refresh()}.
+ */
 public class ConfigManager {
-    private static final Properties props = new Properties();
-
-    static {
-        try (InputStream is = ConfigManager.class.getClassLoader()
-                .getResourceAsStream("config.properties")) {
-            if (is != null) props.load(is);
-        } catch (IOException e) {
-            throw new RuntimeException("No se pudo cargar config.properties", e);
-        }
-    }
+    private static volatile Snapshot snapshot = Snapshot.load();
 
     public static String get(String key) {
-        String env = System.getenv(key.replace(".", "_").toUpperCase());
-        if (env != null) return env;
-        String sys = System.getProperty(key);
-        if (sys != null) return sys;
-        return props.getProperty(key);
+        Entry e = snapshot.entry(key);
+        return e != null ? e.value : null;
     }
 
     public static String get(String key, String defaultValue) {
@@ -30,12 +31,137 @@ public class ConfigManager {
     }
 
     public static int getInt(String key, int defaultValue) {
-        String v = get(key);
-        return v != null ? Integer.parseInt(v) : defaultValue;
+        Entry e = snapshot.entry(key);
+        return e != null ? e.asInt() : defaultValue;
     }
 
     public static boolean getBoolean(String key, boolean defaultValue) {
-        String v = get(key);
-        return v != null ? Boolean.parseBoolean(v) : defaultValue;
+        Entry e = snapshot.entry(key);
+        return e != null ? e.asBoolean() : defaultValue;
+    }
+
+    /**
+     * Vuelve a resolver todas las capas, p. ej. tras un {@code System.setProperty}.
+     */
+    public static void refresh() {
+        snapshot = Snapshot.load();
+    }
+
+    /**
+     * Configuración efectiva, una clave por línea con la capa de la que sale.
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder("Configuración efectiva");
+        String profile = snapshot.profile;
+        sb.append(profile != null ? " (perfil " + profile + ")" : "").append(':');
+        for (Map.Entry<String, Entry> e : new TreeMap<>(snapshot.entries).entrySet()) {
+            sb.append("\n  ").append(e.getKey()).append('=').append(e.getValue().value)
+                    .append("  [").append(e.getValue().source).append(']');
+        }
+        return sb.toString();
+    }
+
+    /** Valor con su capa; los tipados se parsean al crearla. */
+    private static final class Entry {
+        final String value;
+        final String source;
+        private final Integer intValue;
+        private final boolean booleanValue;
+
+        Entry(String value, String source) {
+            this.value = value;
+            this.source = source;
+            this.intValue = parseInt(value.trim());
+            this.booleanValue = Boolean.parseBoolean(value.trim());
+        }
+
+        int asInt() {
+            if (intValue == null) {
+                throw new NumberFormatException("No es un entero: \"" + value + "\" [" + source + "]");
+            }
+            return intValue;
+        }
+
+        boolean asBoolean() {
+            return booleanValue;
+        }
+
+        private static Integer parseInt(String text) {
+            try {
+                return Integer.valueOf(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        final String profile;
+        final Map<String, Entry> entries;
+
+        private Snapshot(String profile, Map<String, Entry> entries) {
+            this.profile = profile;
+            this.entries = Map.copyOf(entries);
+        }
+
+        static Snapshot load() {
+            Properties base = loadResource("config.properties");
+            if (base == null) base = new Properties();
+            String profile = lookupOverride("config.profile");
+            if (profile == null) profile = base.getProperty("config.profile");
+            if (profile != null && profile.isBlank()) profile = null;
+
+            Map<String, Entry> entries = new HashMap<>();
+            for (String key : base.stringPropertyNames()) {
+                entries.put(key, new Entry(base.getProperty(key), "config.properties"));
+            }
+            if (profile != null) {
+                String file = "config-" + profile + ".properties";
+                Properties overlay = loadResource(file);
+                if (overlay == null) {
+                    throw new IllegalStateException("No existe el perfil de configuración " + file);
+                }
+                for (String key : overlay.stringPropertyNames()) {
+                    entries.put(key, new Entry(overlay.getProperty(key), file));
+                }
+            }
+            // Las capas superiores solo se consultan para claves conocidas; el resto se resuelve al pedirlas
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry override = resolveOverride(e.getKey());
+                if (override != null) e.setValue(override);
+            }
+            return new Snapshot(profile, entries);
+        }
+
+        /** null si ninguna capa define la clave. */
+        Entry entry(String key) {
+            Entry e = entries.get(key);
+            return e != null ? e : resolveOverride(key);
+        }
+
+        private static Entry resolveOverride(String key) {
+            String envName = key.replace(".", "_").toUpperCase();
+            String env = System.getenv(envName);
+            if (env != null) return new Entry(env, "env " + envName);
+            String sys = System.getProperty(key);
+            if (sys != null) return new Entry(sys, "system property");
+            return null;
+        }
+
+        private static String lookupOverride(String key) {
+            Entry e = resolveOverride(key);
+            return e != null ? e.value : null;
+        }
+
+        private static Properties loadResource(String name) {
+            try (InputStream is = ConfigManager.class.getClassLoader().getResourceAsStream(name)) {
+                if (is == null) return null;
+                Properties props = new Properties();
+                props.load(is);
+                return props;
+            } catch (IOException e) {
+                throw new RuntimeException("No se pudo cargar " + name, e);
+            }
+        }
     }
 }
@@ -0,0 +1,213 @@
+package utils;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Esperas de DOM dirigidas por eventos: un {@code MutationObserver} instalado con
+ * {@code executeAsyncScript} resuelve la llamada en cuanto el subárbol observado
+ * cumple la condición, sin viajes de ida y vuelta por cada sondeo.
+ * Si el driver no admite scripts asíncronos o MutationObserver (o ui.wait.mode=poll)
+ * se sondea con backoff adaptativo; un error puntual del observer solo pasa a
+ * sondeo esa espera, con el tiempo que le quede. Cada espera estima lo ahorrado frente al sondeo de 500 ms
+ * de WebDriverWait.
+ */
+public class DomWaiter {
+    private static final long REFERENCE_POLL_MS = 500;
+    private static final long MIN_POLL_MS = 10;
+    private static final long MAX_POLL_MS = 200;
+
+    /** Comprueba la condición; lo comparten el observer y el sondeo. */
+    private static final String CHECK =
+            "function met(kind, sel, cls) {"
+            + "  var el = document.querySelector(sel);"
+            + "  var shown = !!el && !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length);"
+            + "  switch (kind) {"
+            + "    case 'present': return !!el;"
+            + "    case 'visible': return shown;"
+            + "    case 'absent': return !shown;"
+            + "    case 'class': return !!el && el.classList.contains(cls);"
+            + "  }"
+            + "  return false;"
+            + "}";
+
+    private static final String OBSERVE = CHECK
+            + "var kind = arguments[0], sel = arguments[1], cls = arguments[2],"
+            + "    root = document.querySelector(arguments[3]) || document.documentElement,"
+            + "    timeout = arguments[4], done = arguments[arguments.length - 1],"
+            + "    start = performance.now(), timer, observer;"
+            + "if (met(kind, sel, cls)) { done({met: true, immediate: true, waited: 0}); return; }"
+            + "function finish(ok) {"
+            + "  observer.disconnect(); clearTimeout(timer);"
+            + "  done({met: ok, immediate: false, waited: performance.now() - start});"
+            + "}"
+            + "observer = new MutationObserver(function () { if (met(kind, sel, cls)) finish(true); });"
+            + "observer.observe(root, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "timer = setTimeout(function () { finish(met(kind, sel, cls)); }, timeout);";
+
+    private static final String POLL = CHECK + "return met(arguments[0], arguments[1], arguments[2]);";
+
+    private static final LongAdder waits = new LongAdder();
+    private static final LongAdder immediate = new LongAdder();
+    private static final LongAdder observed = new LongAdder();
+    private static final LongAdder polled = new LongAdder();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder savedNanos = new LongAdder();
+
+    private final JavascriptExecutor js;
+    private final long timeoutMs;
+    private boolean observerMode;
+
+    public DomWaiter(WebDriver driver, Duration timeout) {
+        this.js = (JavascriptExecutor) driver;
+        this.timeoutMs = timeout.toMillis();
+        this.observerMode = !"poll".equalsIgnoreCase(ConfigManager.get("ui.wait.mode", "observer"));
+        if (observerMode) {
+            // El script asíncrono debe poder esperar todo el timeout sin que el driver lo corte
+            driver.manage().timeouts().scriptTimeout(timeout.plusSeconds(5));
+        }
+    }
+
+    /** Espera a que exista un elemento que cumpla el selector. */
+    public boolean present(String root, String selector) {
+        return await("present", root, selector, null);
+    }
+
+    /** Espera a que el elemento sea visible. */
+    public boolean visible(String root, String selector) {
+        return await("visible", root, selector, null);
+    }
+
+    /** Espera a que el elemento no exista o no sea visible. */
+    public boolean absent(String root, String selector) {
+        return await("absent", root, selector, null);
+    }
+
+    /** Espera a que el elemento tenga la clase indicada. */
+    public boolean hasClass(String root, String selector, String cssClass) {
+        return await("class", root, selector, cssClass);
+    }
+
+    private boolean await(String kind, String root, String selector, String cssClass) {
+        // Algunos drivers (HtmlUnit) no aceptan argumentos null en los scripts
+        cssClass = cssClass == null ? "" : cssClass;
+        JfrEvents.UiWait event = new JfrEvents.UiWait();
+        event.begin();
+        long start = Timings.start();
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        Outcome outcome = null;
+        try {
+            outcome = observerMode ? observe(kind, root, selector, cssClass) : null;
+            if (outcome == null) outcome = poll(kind, selector, cssClass, deadline);
+            record(outcome);
+            return outcome.met();
+        } finally {
+            Timings.record(Timings.Category.UI_WAIT, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.condition = kind + " " + selector + (cssClass.isEmpty() ? "" : " ." + cssClass);
+                event.outcome = outcome == null ? "error" : outcome.met() ? "ok" : "timeout";
+                event.mode = outcome == null ? null : outcome.mode();
+                event.savedTime = outcome == null ? 0 : outcome.savedNanos();
+                event.commit();
+            }
+        }
+    }
+
+    private record Outcome(boolean met, String mode, long savedNanos) { }
+
+    /**
+     * Devuelve null si esta espera debe seguir por sondeo. Solo si el driver no
+     * admite el observer se deja de usar para el resto de esperas; un error
+     * puntual (script, elemento obsoleto, navegación) no lo desactiva.
+     */
+    private Outcome observe(String kind, String root, String selector, String cssClass) {
+        Object raw;
+        try {
+            raw = js.executeAsyncScript(OBSERVE, kind, selector, cssClass, root, timeoutMs);
+        } catch (WebDriverException e) {
+            if (unsupported(e)) {
+                observerMode = false;
+                System.out.println("MutationObserver no disponible, se usa sondeo: " + e.getClass().getSimpleName());
+            }
+            return null;
+        }
+        if (!(raw instanceof Map)) {
+            // El driver ejecuta el script pero no devuelve lo que le pasa el callback
+            observerMode = false;
+            return null;
+        }
+        Map<?, ?> result = (Map<?, ?>) raw;
+        boolean met = Boolean.TRUE.equals(result.get("met"));
+        if (Boolean.TRUE.equals(result.get("immediate"))) {
+            return new Outcome(true, "immediate", 0);
+        }
+        long waitedMs = Math.round(((Number) result.get("waited")).doubleValue());
+        return new Outcome(met, "observer", met ? savedVersusPolling(waitedMs) : 0);
+    }
+
+    private static boolean unsupported(WebDriverException e) {
+        if (e instanceof UnsupportedCommandException) return true;
+        String message = e.getMessage();
+        return e instanceof JavascriptException && message != null && message.contains("MutationObserver");
+    }
+
+    /**
+     * Sondeo con backoff: empieza en 10 ms y dobla hasta 200 ms, así las
+     * condiciones rápidas se ven pronto y las lentas no saturan el driver.
+     * {@code deadline} es el de la espera completa, aunque antes se probara el observer.
+     */
+    private Outcome poll(String kind, String selector, String cssClass, long deadline) {
+        long start = System.nanoTime();
+        long interval = MIN_POLL_MS;
+        boolean first = true;
+        while (true) {
+            boolean met = Boolean.TRUE.equals(js.executeScript(POLL, kind, selector, cssClass));
+            if (met) {
+                if (first) return new Outcome(true, "immediate", 0);
+                long waitedMs = (System.nanoTime() - start) / 1_000_000;
+                return new Outcome(true, "poll", savedVersusPolling(waitedMs));
+            }
+            if (System.nanoTime() >= deadline) return new Outcome(false, "poll", 0);
+            first = false;
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Outcome(false, "poll", 0);
+            }
+            interval = Math.min(MAX_POLL_MS, interval * 2);
+        }
+    }
+
+    /** WebDriverWait habría visto la condición en el siguiente múltiplo de su intervalo. */
+    private static long savedVersusPolling(long waitedMs) {
+        long detectedByPolling = ((waitedMs + REFERENCE_POLL_MS - 1) / REFERENCE_POLL_MS) * REFERENCE_POLL_MS;
+        return Math.max(0, detectedByPolling - waitedMs) * 1_000_000;
+    }
+
+    private static void record(Outcome outcome) {
+        waits.increment();
+        if (!outcome.met()) timeouts.increment();
+        switch (outcome.mode()) {
+            case "immediate": immediate.increment(); break;
+            case "observer": observed.increment(); break;
+            default: polled.increment(); break;
+        }
+        savedNanos.add(outcome.savedNanos());
+    }
+
+    public static String stats() {
+        return String.format("Esperas DOM: %d (inmediatas %d, observer %d, sondeo %d, timeouts %d),"
+                        + " ahorro estimado frente a sondeo de %d ms: %.1f ms",
+                waits.sum(), immediate.sum(), observed.sum(), polled.sum(), timeouts.sum(),
+                REFERENCE_POLL_MS, savedNanos.sum() / 1_000_000.0);
+    }
+}
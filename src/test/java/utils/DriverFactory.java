@@ -0,0 +1,67 @@
+package utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.htmlunit.BrowserVersion;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Crea el WebDriver indicado por la clave {@code browser}.
+ * chrome lanza Chrome (headless según {@code headless}); htmlunit es un
+ * navegador con JavaScript dentro de la propia JVM, que arranca en milisegundos
+ * y basta para la página simple del mock: útil en smoke y en PRs.
+ */
+public final class DriverFactory {
+    public enum Backend { CHROME, HTMLUNIT }
+
+    private DriverFactory() { }
+
+    public static Backend configuredBackend() {
+        String browser = ConfigManager.get("browser", "chrome").trim().toUpperCase(Locale.ROOT);
+        try {
+            return Backend.valueOf(browser);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Navegador no soportado: " + browser.toLowerCase(Locale.ROOT)
+                    + " (valores: chrome, htmlunit)");
+        }
+    }
+
+    /**
+     * Preparación única por JVM antes de lanzar navegadores (descarga del driver en Chrome).
+     */
+    public static void prepare(Backend backend) {
+        if (backend == Backend.CHROME) {
+            WebDriverManager.chromedriver().setup();
+        }
+    }
+
+    public static WebDriver create(Backend backend) {
+        WebDriver driver;
+        switch (backend) {
+            case HTMLUNIT:
+                driver = new HtmlUnitDriver(BrowserVersion.CHROME, true);
+                break;
+            case CHROME:
+            default:
+                driver = launchChrome();
+                break;
+        }
+        driver.manage().timeouts().implicitlyWait(
+                Duration.ofSeconds(ConfigManager.getInt("implicit.wait", 0)));
+        return driver;
+    }
+
+    private static WebDriver launchChrome() {
+        ChromeOptions opts = new ChromeOptions();
+        if (ConfigManager.getBoolean("headless", true))
+            opts.addArguments("--headless=new");
+        opts.addArguments("--no-sandbox", "--disable-dev-shm-usage",
+                "--window-size=1920,1080");
+        return new ChromeDriver(opts);
+    }
+}
@@ -0,0 +1,121 @@
+package utils;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conexiones HTTP compartidas por todos los {@link ApiClient}.
+ * Las peticiones síncronas (RestAssured) usan un pool keep-alive común; cada
+ * hilo tiene su propio cliente sobre ese pool, porque RestAssured ajusta
+ * parámetros del cliente en cada petición. Las asíncronas usan un único
+ * {@link HttpClient} de java.net.http.
+ */
+@SuppressWarnings("deprecation") // RestAssured 5 sigue sobre la API clásica de HttpClient 4
+public final class HttpClientPool {
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong asyncRequests = new AtomicLong();
+    private static final AtomicLong connectionsOpened = new AtomicLong();
+
+    private static final PoolingClientConnectionManager connectionManager = createConnectionManager();
+    private static final ThreadLocal<RestAssuredConfig> restAssuredConfig =
+            ThreadLocal.withInitial(HttpClientPool::createRestAssuredConfig);
+    private static final ExecutorService asyncExecutor = createAsyncExecutor();
+    private static final HttpClient asyncClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(asyncExecutor)
+            .build();
+
+    private HttpClientPool() {}
+
+    /**
+     * Configuración de RestAssured del hilo actual, con su cliente sobre el pool común.
+     */
+    public static RestAssuredConfig restAssuredConfig() {
+        requests.incrementAndGet();
+        return restAssuredConfig.get();
+    }
+
+    public static HttpClient asyncClient() {
+        asyncRequests.incrementAndGet();
+        return asyncClient;
+    }
+
+    public static long connectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public static long connectionsReused() {
+        return Math.max(0, requests.get() - connectionsOpened.get());
+    }
+
+    public static String stats() {
+        PoolStats pool = connectionManager.getTotalStats();
+        return String.format("HTTP pool: peticiones=%d conexiones abiertas=%d reutilizadas=%d "
+                        + "en uso=%d libres=%d max=%d | async: peticiones=%d",
+                requests.get(), connectionsOpened.get(), connectionsReused(),
+                pool.getLeased(), pool.getAvailable(), pool.getMax(), asyncRequests.get());
+    }
+
+    private static PoolingClientConnectionManager createConnectionManager() {
+        PoolingClientConnectionManager manager =
+                new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault()) {
+                    @Override
+                    protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemes) {
+                        return new DefaultClientConnectionOperator(schemes) {
+                            @Override
+                            public void openConnection(OperatedClientConnection conn, HttpHost target,
+                                                       InetAddress local, HttpContext context,
+                                                       HttpParams params) throws IOException {
+                                connectionsOpened.incrementAndGet();
+                                super.openConnection(conn, target, local, context, params);
+                            }
+                        };
+                    }
+                };
+        manager.setMaxTotal(ConfigManager.getInt("http.pool.max.total", 200));
+        manager.setDefaultMaxPerRoute(ConfigManager.getInt("http.pool.max.per.route", 50));
+        return manager;
+    }
+
+    private static RestAssuredConfig createRestAssuredConfig() {
+        return RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+                .reuseHttpClientInstance()
+                .httpClientFactory(() -> new DefaultHttpClient(connectionManager)));
+    }
+
+    /**
+     * Hilos virtuales si la JVM los ofrece (21+); si no, un pool cacheado de hilos daemon.
+     */
+    private static ExecutorService createAsyncExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "api-client-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+/**
+ * Eventos de JDK Flight Recorder de la suite y la grabación que los recoge.
+ * Sin grabación activa los eventos no se confirman y el coste es un flag:
+ * los campos solo se rellenan cuando {@code shouldCommit()} es cierto.
+ * Se activa con jfr.enabled=true; el fichero queda en jfr.file.
+ */
+public final class JfrEvents {
+    private static Recording recording;
+
+    private JfrEvents() { }
+
+    @Name("todo.ApiRequest")
+    @Label("API Request")
+    @Category({"Todo BDD", "API"})
+    @Description("Petición del ApiClient, desde el envío hasta leer el cuerpo")
+    @StackTrace(false)
+    public static class ApiRequest extends Event {
+        @Label("Method") public String method;
+        @Label("Path") public String path;
+        @Label("Status") public int status;
+        @Label("Response Bytes") @DataAmount public long bytes;
+    }
+
+    @Name("todo.MockRequest")
+    @Label("Mock Request")
+    @Category({"Todo BDD", "Mock"})
+    @Description("Petición servida por el mock, desde que llega hasta que se envía la respuesta")
+    @StackTrace(false)
+    public static class MockRequest extends Event {
+        @Label("Method") public String method;
+        @Label("URL") public String url;
+        @Label("Status") public int status;
+        @Label("Matched") public boolean matched;
+        @Label("Match Time") @Timespan public long matchTime;
+        @Label("Handling Time") @Timespan public long handlingTime;
+        @Label("Serialization Time") @Timespan public long serializationTime;
+        @Label("Response Bytes") @DataAmount public long bytes;
+    }
+
+    @Name("todo.UiWait")
+    @Label("UI Wait")
+    @Category({"Todo BDD", "UI"})
+    @Description("Espera de DOM de TodoPage")
+    @StackTrace(false)
+    public static class UiWait extends Event {
+        @Label("Condition") public String condition;
+        @Label("Outcome") public String outcome;
+        @Label("Mode") public String mode;
+        @Label("Saved Time") @Description("Estimado frente a sondear cada 500 ms") @Timespan public long savedTime;
+    }
+
+    /**
+     * Inicia la grabación de toda la suite si jfr.enabled=true.
+     */
+    public static synchronized void startRecording() {
+        if (recording != null || !ConfigManager.getBoolean("jfr.enabled", false)) return;
+        try {
+            Configuration settings = Configuration.getConfiguration(
+                    ConfigManager.get("jfr.settings", "default"));
+            recording = new Recording(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("No se pudo cargar la configuración JFR", e);
+        }
+        recording.setName("todo-bdd");
+        recording.enable(ApiRequest.class);
+        recording.enable(MockRequest.class);
+        recording.enable(UiWait.class);
+        recording.start();
+    }
+
+    /**
+     * Detiene la grabación y la vuelca en jfr.file; devuelve la ruta o null si no había.
+     */
+    public static synchronized Path dumpRecording() {
+        if (recording == null) return null;
+        Path file = Paths.get(ConfigManager.get("jfr.file", "target/jfr/suite.jfr"));
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            recording.stop();
+            recording.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Escritor JSON de una sola pasada sobre un buffer de bytes reutilizable.
+ * Escapa y codifica en UTF-8 cada cadena en el mismo recorrido, sin crear
+ * strings intermedios; tras {@link #reset()} el buffer se reaprovecha, por lo
+ * que en régimen estable no reserva memoria por valor escrito.
+ * Las comas y la estructura las decide quien llama.
+ */
+public final class JsonWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private byte[] buf;
+    private int len;
+
+    public JsonWriter() {
+        this(1024);
+    }
+
+    public JsonWriter(int initialCapacity) {
+        buf = new byte[initialCapacity];
+    }
+
+    /**
+     * Pre-codifica un nombre de campo como {@code "nombre":} para escribirlo con {@link #raw(byte[])}.
+     */
+    public static byte[] fieldName(String name) {
+        JsonWriter w = new JsonWriter(name.length() + 8);
+        w.string(name).raw(':');
+        return w.toByteArray();
+    }
+
+    public JsonWriter reset() {
+        len = 0;
+        return this;
+    }
+
+    public int size() {
+        return len;
+    }
+
+    public JsonWriter raw(char c) {
+        ensure(1);
+        buf[len++] = (byte) c;
+        return this;
+    }
+
+    public JsonWriter raw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        return raw(NULL);
+    }
+
+    public JsonWriter number(long value) {
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            return raw(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+        if (value < 0) {
+            buf[len++] = '-';
+            value = -value;
+        }
+        int start = len;
+        do {
+            buf[len++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // los dígitos salieron al revés
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+        return this;
+    }
+
+    /**
+     * Escribe una cadena entre comillas, escapando comillas, barra invertida,
+     * todos los caracteres de control y U+2028/U+2029.
+     */
+    public JsonWriter string(String s) {
+        if (s == null) {
+            return nullValue();
+        }
+        // peor caso: \\u00XX (6 bytes) por carácter, más las comillas
+        ensure(s.length() * 6 + 2);
+        byte[] b = buf;
+        int p = len;
+        b[p++] = '"';
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') b[p++] = '\\';
+                b[p++] = (byte) c;
+            } else if (c < 0x20) {
+                b[p++] = '\\';
+                switch (c) {
+                    case '\b': b[p++] = 'b'; break;
+                    case '\f': b[p++] = 'f'; break;
+                    case '\n': b[p++] = 'n'; break;
+                    case '\r': b[p++] = 'r'; break;
+                    case '\t': b[p++] = 't'; break;
+                    default:
+                        b[p++] = 'u';
+                        b[p++] = '0';
+                        b[p++] = '0';
+                        b[p++] = HEX[c >> 4];
+                        b[p++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c == '\u2028' || c == '\u2029') {
+                b[p++] = '\\';
+                b[p++] = 'u';
+                b[p++] = '2';
+                b[p++] = '0';
+                b[p++] = '2';
+                b[p++] = HEX[c & 0xF];
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                // un surrogate suelto no es UTF-8 válido: se sustituye por U+FFFD
+                if (Character.isSurrogate(c)) c = '\uFFFD';
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        b[p++] = '"';
+        len = p;
+        return this;
+    }
+
+    /**
+     * Escribe un valor genérico: cadenas, números, booleanos, mapas e iterables.
+     * Pensado para cuerpos de petición pequeños, no para el camino caliente.
+     */
+    public JsonWriter value(Object value) {
+        if (value == null) {
+            return nullValue();
+        } else if (value instanceof String) {
+            return string((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            return number(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            // JSON no tiene NaN ni infinitos: como JSON.stringify, se escriben como null
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) return nullValue();
+            return raw(value.toString().getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return raw(value.toString().getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof Map) {
+            raw('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) raw(',');
+                first = false;
+                string(String.valueOf(entry.getKey())).raw(':').value(entry.getValue());
+            }
+            return raw('}');
+        } else if (value instanceof Iterable) {
+            raw('[');
+            boolean first = true;
+            for (Object item : (Iterable<?>) value) {
+                if (!first) raw(',');
+                first = false;
+                value(item);
+            }
+            return raw(']');
+        }
+        return string(value.toString());
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Modo carga: ejecuta el flujo de los escenarios de API (crear, consultar,
+ * completar, filtrar, eliminar) con N workers concurrentes durante un tiempo
+ * fijo y registra la latencia de cada operación en histogramas HDR.
+ * Con {@code load.rate} > 0 cada worker se ajusta a su parte del ritmo objetivo
+ * y la latencia de la iteración se mide desde el instante previsto, para no
+ * ocultar la espera acumulada (coordinated omission).
+ * El resultado se escribe en JSON en {@code load.report.dir}.
+ *
+ * <pre>mvn -Pload test-compile exec:java -Dload.concurrency=16 -Dload.duration.seconds=60</pre>
+ */
+public class LoadRunner {
+    private static final String[] OPERATIONS = {"create", "getById", "complete", "listDone", "delete", "iteration"};
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+    private final int concurrency;
+    private final double rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+
+    public LoadRunner(int concurrency, double rate, int durationSeconds, int warmupSeconds) {
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        for (String op : OPERATIONS) {
+            recorders.put(op, new Recorder(MAX_LATENCY_NANOS, 3));
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadRunner runner = new LoadRunner(
+                ConfigManager.getInt("load.concurrency", 8),
+                Double.parseDouble(ConfigManager.get("load.rate", "0")),
+                ConfigManager.getInt("load.duration.seconds", 30),
+                ConfigManager.getInt("load.warmup.seconds", 5));
+
+        String target = ConfigManager.get("load.target", "");
+        MockServerManager mock = null;
+        if (target.isEmpty()) {
+            mock = new MockServerManager();
+            mock.start(0);
+            target = mock.getBaseUrl();
+        }
+        try {
+            Map<String, Object> report = runner.run(target);
+            Path file = runner.writeReport(report, Paths.get(
+                    ConfigManager.get("load.report.dir", "target/load-reports")));
+            System.out.println("Informe de carga: " + file);
+        } finally {
+            if (mock != null) mock.stop();
+        }
+    }
+
+    /**
+     * Lanza los workers, descarta el calentamiento y devuelve el informe.
+     */
+    public Map<String, Object> run(String baseUrl) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        // Intervalo entre iteraciones de un mismo worker para alcanzar el ritmo total
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            long firstStart = start + (interval > 0 ? interval * i / concurrency : 0);
+            Thread worker = new Thread(() -> work(new ApiClient(baseUrl), firstStart, interval, end),
+                    "load-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        LockSupport.parkNanos(measureFrom - System.nanoTime());
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(e -> e.set(0));
+        System.out.printf("Calentamiento terminado; midiendo %d s con %d workers%n", durationSeconds, concurrency);
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return report(baseUrl, (System.nanoTime() - measureFrom) / 1e9);
+    }
+
+    private void work(ApiClient api, long firstStart, long interval, long end) {
+        long intended = firstStart;
+        while (true) {
+            if (interval > 0) {
+                LockSupport.parkNanos(intended - System.nanoTime());
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= end) return;
+            iteration(api);
+            recorders.get("iteration").recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS));
+            intended += interval;
+        }
+    }
+
+    private void iteration(ApiClient api) {
+        Response created = call("create", 201, () -> api.createTodo(Map.of("title", "Carga " + Thread.currentThread().getName())));
+        if (created == null) return;
+        int id = created.jsonPath().getInt("id");
+        call("getById", 200, () -> api.getTodoById(id));
+        call("complete", 200, () -> api.updateTodoStatus(id, "DONE"));
+        call("listDone", 200, () -> api.getTodosPage("DONE", 20, null));
+        call("delete", 204, () -> api.deleteTodo(id));
+    }
+
+    /**
+     * Ejecuta y mide una operación. Una excepción (conexión rechazada o
+     * reiniciada, timeout) cuenta como error de esa operación en lugar de
+     * terminar el worker, para que la concurrencia medida sea la configurada.
+     * Devuelve null si la operación falló.
+     */
+    private Response call(String op, int expectedStatus, Supplier<Response> request) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = request.get();
+        } catch (Exception e) {
+            // RestAssured relanza sin envolver las excepciones de E/S (ConnectException...)
+            errors.get(op).incrementAndGet();
+            return null;
+        }
+        recorders.get(op).recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+        if (response.statusCode() != expectedStatus) {
+            errors.get(op).incrementAndGet();
+            return null;
+        }
+        return response;
+    }
+
+    private Map<String, Object> report(String baseUrl, double seconds) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (String op : OPERATIONS) {
+            Histogram h = recorders.get(op).getIntervalHistogram();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", h.getTotalCount());
+            stats.put("errors", errors.get(op).get());
+            stats.put("throughputPerSec", round(h.getTotalCount() / seconds));
+            stats.put("p50Ms", millis(h.getValueAtPercentile(50)));
+            stats.put("p95Ms", millis(h.getValueAtPercentile(95)));
+            stats.put("p99Ms", millis(h.getValueAtPercentile(99)));
+            stats.put("maxMs", millis(h.getMaxValue()));
+            operations.put(op, stats);
+            System.out.printf("%-10s n=%-8d err=%-5d %8.1f/s  p50=%7.2f p95=%7.2f p99=%7.2f max=%7.2f ms%n",
+                    op, h.getTotalCount(), errors.get(op).get(), h.getTotalCount() / seconds,
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(95)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getMaxValue()));
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", LocalDateTime.now().toString());
+        report.put("target", baseUrl);
+        report.put("concurrency", concurrency);
+        report.put("targetRate", rate);
+        report.put("durationSeconds", round(seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    public Path writeReport(Map<String, Object> report, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("load-" + LocalDateTime.now()
+                .format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new JsonWriter().value(report).writeTo(out);
+        }
+        return file;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,114 @@
+package utils;
+
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ServeEventListener;
+import com.github.tomakehurst.wiremock.http.LoggedResponse;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import jdk.jfr.EventType;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Emite un evento JFR por cada petición que sirve el mock. El evento en curso
+ * va asociado al id del ServeEvent, que WireMock conserva en todas las fases:
+ * con mock.async.responses=true el envío y el cierre no ocurren en el hilo de
+ * Jetty que hizo el match. La serialización se mide desde TodoApiTransformer.
+ */
+class MockRequestRecorder implements ServeEventListener {
+    static final String NAME = "todo-jfr";
+
+    private static final EventType TYPE = EventType.getEventType(JfrEvents.MockRequest.class);
+    private static final Map<UUID, InFlight> inFlight = new ConcurrentHashMap<>();
+    // Solo mientras se ejecuta transform(), que es síncrono en el hilo del match
+    private static final ThreadLocal<InFlight> transforming = new ThreadLocal<>();
+
+    private static final class InFlight {
+        final JfrEvents.MockRequest event = new JfrEvents.MockRequest();
+        long matchStart;
+        volatile long matchEnd;
+        volatile long responseStart;
+        volatile long serialization;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void beforeMatch(ServeEvent serveEvent, Parameters parameters) {
+        // Sin grabación no se reserva nada
+        if (!TYPE.isEnabled()) return;
+        InFlight request = new InFlight();
+        request.event.begin();
+        request.matchStart = System.nanoTime();
+        inFlight.put(serveEvent.getId(), request);
+    }
+
+    @Override
+    public void afterMatch(ServeEvent serveEvent, Parameters parameters) {
+        InFlight request = inFlight.get(serveEvent.getId());
+        if (request != null) request.matchEnd = System.nanoTime();
+    }
+
+    @Override
+    public void beforeResponseSent(ServeEvent serveEvent, Parameters parameters) {
+        InFlight request = inFlight.get(serveEvent.getId());
+        if (request != null) request.responseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterComplete(ServeEvent serveEvent, Parameters parameters) {
+        InFlight request = inFlight.remove(serveEvent.getId());
+        if (request == null) return;
+
+        JfrEvents.MockRequest event = request.event;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.method = serveEvent.getRequest().getMethod().getName();
+        event.url = serveEvent.getRequest().getUrl();
+        event.matched = serveEvent.getWasMatched();
+        event.matchTime = request.matchEnd - request.matchStart;
+        if (request.responseStart != 0) {
+            event.handlingTime = request.responseStart - request.matchEnd;
+        }
+        event.serializationTime = request.serialization;
+        LoggedResponse response = serveEvent.getResponse();
+        if (response != null) {
+            event.status = response.getStatus();
+            byte[] body = response.getBody();
+            event.bytes = body != null ? body.length : 0;
+        }
+        event.commit();
+    }
+
+    /**
+     * Ejecuta la transformación de {@code serveEvent}; las serializaciones que
+     * haga se suman a su evento.
+     */
+    static <T> T transform(ServeEvent serveEvent, Supplier<T> transformation) {
+        InFlight request = inFlight.get(serveEvent.getId());
+        if (request == null) return transformation.get();
+        transforming.set(request);
+        try {
+            return transformation.get();
+        } finally {
+            transforming.remove();
+        }
+    }
+
+    /**
+     * Marca de inicio de una serialización; 0 si no hay evento que la registre.
+     */
+    static long serializationStart() {
+        return transforming.get() != null ? System.nanoTime() : 0;
+    }
+
+    static void serializationEnd(long start) {
+        if (start == 0) return;
+        InFlight request = transforming.get();
+        if (request != null) request.serialization += System.nanoTime() - start;
+    }
+}
@@ -1,46 +1,138 @@
 package utils;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
-import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 
 /**
  * Gestor del servidor mock para simular la API de tareas.
- * Implementa un comportamiento stateful para soportar operaciones CRUD.
+ * Implementa un comportamiento stateful para soportar operaciones CRUD:
+ * {@link TodoApiTransformer} responde {@code /api/todos} directamente desde
+ * el almacén de tareas, con una única mapping registrada al arrancar; la
+ * página de la UI la sirve {@link UiAssetTransformer} desde recursos precargados.
+ * Cada instancia tiene su propio servidor y su propio almacén de tareas,
+ * de modo que los workers de una ejecución paralela no comparten estado.
  */
 public class MockServerManager {
-    private static MockServerManager instance;
+    /** Versión esperada que acepta cualquier versión actual. */
+    public static final int ANY_VERSION = -1;
+
     private WireMockServer wireMockServer;
     private final AtomicInteger idGenerator = new AtomicInteger(1);
-    private final Map<Integer, Map<String, Object>> tasks = new ConcurrentHashMap<>();
+    // Mapas del almacén; se sustituyen los dos a la vez al cargar un snapshot o un fixture y al vaciarlo
+    private volatile Store store = Store.empty();
     private int port;
+    // Toda mutación pasa por aquí; con persistencia, además, en el orden del journal
+    private final Object mutationLock = new Object();
+    // Persistencia opcional (store.persistence.dir): snapshot + journal de mutaciones
+    private volatile TaskJournal journal;
+    private Path snapshotFile;
+    // Feed de cambios (/events): anillo acotado, sin cerrojos al publicar
+    private final TaskEventLog events = new TaskEventLog(ConfigManager.getInt("mock.events.capacity", 4096));
 
-    private MockServerManager() {}
-
-    public static synchronized MockServerManager getInstance() {
-        if (instance == null) {
-            instance = new MockServerManager();
+    /**
+     * Tareas ordenadas por id (listados deterministas) y el índice secundario
+     * estado -> (id -> tarea). Se publican juntas para que un lector nunca vea
+     * las tareas de un contenido con el índice de otro.
+     */
+    private record Store(ConcurrentSkipListMap<Integer, Task> tasks,
+                         Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>> byStatus) {
+        static Store empty() {
+            Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListMap<>());
+            }
+            return new Store(new ConcurrentSkipListMap<>(), byStatus);
         }
-        return instance;
     }
 
     /**
-     * Inicia el servidor mock en el puerto especificado.
+     * Inicia el servidor mock en el puerto especificado (0 = puerto libre aleatorio).
      */
     public void start(int port) {
-        this.port = port;
-        wireMockServer = new WireMockServer(WireMockConfiguration.options().port(port));
+        start(port, null);
+    }
+
+    /**
+     * Como {@link #start(int)}, con el snapshot y el journal en {@code persistenceDir};
+     * null usa {@code store.persistence.dir} (un subdirectorio por puerto) si está configurado.
+     */
+    public void start(int port, Path persistenceDir) {
+        long start = Timings.start();
+        String apiPath = ConfigManager.get("api.base.path", "/api/todos");
+        WireMockConfiguration options = engineOptions(port)
+                .extensions(new TodoApiTransformer(this, apiPath), new UiAssetTransformer(),
+                        new MockRequestRecorder());
+        wireMockServer = new WireMockServer(options);
         wireMockServer.start();
-        WireMock.configureFor("localhost", port);
-        System.out.println("Mock Server iniciado en puerto: " + port);
+        this.port = wireMockServer.port();
+        String configuredDir = ConfigManager.get("store.persistence.dir", "");
+        if (persistenceDir != null) {
+            openPersistence(persistenceDir);
+        } else if (!configuredDir.isBlank()) {
+            openPersistence(Paths.get(configuredDir, "mock-" + this.port));
+        }
+        registerApiMapping(apiPath);
+        registerUiMapping();
+        Timings.record(Timings.Category.SETUP, start);
+        System.out.println("Mock Server iniciado en puerto: " + this.port + " (" + describe(options) + ")");
+    }
+
+    /**
+     * Ajustes del motor desde ConfigManager (mock.*). Un 0 deja el valor por
+     * defecto de WireMock/Jetty. El journal acotado evita que el heap crezca en
+     * ejecuciones largas, ya que solo los escenarios @api lo vacían.
+     */
+    private static WireMockConfiguration engineOptions(int port) {
+        WireMockConfiguration options = WireMockConfiguration.options()
+                .port(port)
+                .gzipDisabled(!ConfigManager.getBoolean("mock.gzip", true));
+        int threads = ConfigManager.getInt("mock.container.threads", 0);
+        if (threads > 0) options.containerThreads(threads);
+        int acceptors = ConfigManager.getInt("mock.jetty.acceptors", 0);
+        if (acceptors > 0) options.jettyAcceptors(acceptors);
+        int acceptQueue = ConfigManager.getInt("mock.jetty.accept.queue", 0);
+        if (acceptQueue > 0) options.jettyAcceptQueueSize(acceptQueue);
+        if (ConfigManager.getBoolean("mock.async.responses", false)) {
+            options.asynchronousResponseEnabled(true)
+                    .asynchronousResponseThreads(ConfigManager.getInt("mock.async.threads", 10));
+        }
+        if (!ConfigManager.getBoolean("mock.journal.enabled", true)) {
+            options.disableRequestJournal();
+        } else {
+            int maxEntries = ConfigManager.getInt("mock.journal.max.entries", 1000);
+            if (maxEntries > 0) options.maxRequestJournalEntries(maxEntries);
+        }
+        return options;
+    }
+
+    private static String describe(WireMockConfiguration options) {
+        String journal = options.requestJournalDisabled() ? "desactivado"
+                : options.maxRequestJournalEntries().map(max -> "máx " + max).orElse("sin límite");
+        String async = options.getAsynchronousResponseSettings().isEnabled()
+                ? options.getAsynchronousResponseSettings().getThreads() + " hilos" : "no";
+        return "hilos=" + options.containerThreads()
+                + ", aceptores=" + options.jettySettings().getAcceptors().map(String::valueOf).orElse("auto")
+                + ", cola=" + options.jettySettings().getAcceptQueueSize().map(String::valueOf).orElse("auto")
+                + ", respuestas asíncronas=" + async
+                + ", journal=" + journal
+                + ", gzip=" + (options.getGzipDisabled() ? "no" : "sí");
     }
 
     /**
@@ -49,20 +141,46 @@ public class MockServerManager {
     public void stop() {
         if (wireMockServer != null && wireMockServer.isRunning()) {
             wireMockServer.stop();
-            tasks.clear();
-            idGenerator.set(1);
+            closePersistence();
+            clearTasks();
             System.out.println("Mock Server detenido");
         }
     }
 
+    /**
+     * Simula una caída: detiene el servidor sin snapshot final. El journal ya
+     * tiene en disco todo lo confirmado, como tras matar el proceso.
+     */
+    public void crash() {
+        TaskJournal j = journal;
+        journal = null;
+        wireMockServer.stop();
+        if (j != null) {
+            try {
+                j.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Directorio del snapshot y el journal, o null si el almacén solo está en memoria. */
+    public Path persistenceDir() {
+        return snapshotFile == null ? null : snapshotFile.getParent();
+    }
+
     /**
      * Limpia todas las tareas (para usar entre tests).
+     * La mapping de la API no depende del estado, así que se conserva.
      */
     public void reset() {
-        tasks.clear();
-        idGenerator.set(1);
-        wireMockServer.resetMappings();
+        long start = Timings.start();
+        mutate(() -> {
+            clearTasks();
+            return true;
+        }, (j, cleared) -> j.clear());
         wireMockServer.resetRequests();
+        Timings.record(Timings.Category.STUB, start);
     }
 
     /**
@@ -80,283 +198,415 @@ public class MockServerManager {
     }
 
     /**
-     * Configura stubs para un escenario específico.
+     * Registra la mapping única que delega toda la API en el transformer.
      */
-    public void setupGetTodosStub(String statusFilter, String responseBody, int status) {
-        if (statusFilter != null && !statusFilter.isEmpty()) {
-            stubFor(WireMock.get(urlPathEqualTo("/api/todos"))
-                    .withQueryParam("status", equalTo(statusFilter))
-                    .willReturn(aResponse()
-                            .withHeader("Content-Type", "application/json")
-                            .withBody(responseBody)
-                            .withStatus(status)));
-        } else {
-            stubFor(WireMock.get(urlPathEqualTo("/api/todos"))
-                    .willReturn(aResponse()
-                            .withHeader("Content-Type", "application/json")
-                            .withBody(responseBody)
-                            .withStatus(status)));
+    private void registerApiMapping(String apiPath) {
+        wireMockServer.stubFor(any(urlPathMatching(apiPath + "(/.*)?"))
+                .willReturn(aResponse().withTransformers(TodoApiTransformer.NAME)));
+    }
+
+    /**
+     * Registra la mapping de la UI: cualquier GET fuera de la API se sirve
+     * desde los recursos precargados. Menor prioridad para no tapar la API.
+     */
+    private void registerUiMapping() {
+        wireMockServer.stubFor(get(anyUrl()).atPriority(10)
+                .willReturn(aResponse().withTransformers(UiAssetTransformer.NAME)));
+    }
+
+    // ================== Métodos de gestión de tareas ==================
+
+    /**
+     * Crea una tarea en el almacenamiento interno.
+     * Devuelve -1 si el estado no es válido.
+     */
+    public int createTask(String titulo, String descripcion, String status) {
+        TaskStatus estado = status != null ? TaskStatus.parse(status) : TaskStatus.PENDING;
+        return estado != null ? createTask(titulo, descripcion, estado).id() : -1;
+    }
+
+    /**
+     * Crea una tarea y devuelve la versión escrita, tal como quedó bajo el lock.
+     */
+    public Task createTask(String titulo, String descripcion, TaskStatus status) {
+        return mutate(() -> {
+            int id = idGenerator.getAndIncrement();
+            Task task = new Task(id, titulo, descripcion != null ? descripcion : "", status);
+            store.tasks().put(id, task);
+            reindex(id);
+            events.publish(TaskEventLog.Type.CREATED, id, task);
+            return task;
+        }, TaskJournal::create);
+    }
+
+    /**
+     * Obtiene todas las tareas, ordenadas por id.
+     */
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(store.tasks().values());
+    }
+
+    /**
+     * Obtiene tareas filtradas por estado, ordenadas por id.
+     * Usa el índice secundario: el coste es proporcional al resultado, no al total.
+     */
+    public List<Task> getTasksByStatus(String status) {
+        TaskStatus estado = TaskStatus.parse(status);
+        return estado != null ? getTasksByStatus(estado) : new ArrayList<>();
+    }
+
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        List<Task> filtered = new ArrayList<>();
+        for (Task task : store.byStatus().get(status).values()) {
+            // Una actualización concurrente puede dejar el índice un instante por detrás
+            if (task.status() == status) {
+                filtered.add(task);
+            }
         }
+        return filtered;
     }
 
     /**
-     * Configura stub para crear tarea exitosamente.
+     * Obtiene hasta {@code max} tareas con id mayor que {@code afterId}, en orden de id.
+     * Con {@code status} null recorre todas; si no, solo el índice de ese estado.
      */
-    public void setupCreateTodoSuccessStub(String responseBody) {
-        stubFor(WireMock.post(urlPathEqualTo("/api/todos"))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "application/json")
-                        .withBody(responseBody)
-                        .withStatus(201)));
+    public List<Task> getTasksAfter(TaskStatus status, int afterId, int max) {
+        Store s = store;
+        NavigableMap<Integer, Task> source = status == null ? s.tasks() : s.byStatus().get(status);
+        NavigableMap<Integer, Task> tail = source.tailMap(afterId, false);
+        List<Task> page = new ArrayList<>(Math.min(max, 256));
+        for (Task task : tail.values()) {
+            if (page.size() == max) break;
+            if (status == null || task.status() == status) {
+                page.add(task);
+            }
+        }
+        return page;
     }
 
     /**
-     * Configura stub para error de validación.
+     * Secuencia del último cambio publicado en el feed. Leída antes que el
+     * estado, cualquier cambio posterior a esa lectura llega con secuencia mayor.
      */
-    public void setupCreateTodoErrorStub(String errorMessage, int status) {
-        stubFor(WireMock.post(urlPathEqualTo("/api/todos"))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "application/json")
-                        .withBody("{\"message\": \"" + errorMessage + "\"}")
-                        .withStatus(status)));
+    public long eventHead() {
+        return events.head();
+    }
+
+    TaskEventLog events() {
+        return events;
     }
 
     /**
-     * Configura stub para obtener tarea por ID.
+     * Obtiene una tarea por ID.
      */
-    public void setupGetTodoByIdStub(int id, String responseBody, int status) {
-        stubFor(WireMock.get(urlPathEqualTo("/api/todos/" + id))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "application/json")
-                        .withBody(responseBody)
-                        .withStatus(status)));
+    public Task getTaskById(int id) {
+        return store.tasks().get(id);
     }
 
     /**
-     * Configura stub para actualizar tarea.
+     * Actualiza el estado de una tarea. Devuelve false si no existe o el estado no es válido.
      */
-    public void setupUpdateTodoStub(int id, String responseBody, int status) {
-        stubFor(WireMock.patch(urlPathEqualTo("/api/todos/" + id))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "application/json")
-                        .withBody(responseBody)
-                        .withStatus(status)));
+    public boolean updateTaskStatus(int id, String status) {
+        TaskStatus estado = TaskStatus.parse(status);
+        return estado != null && updateTaskStatus(id, estado);
+    }
+
+    public boolean updateTaskStatus(int id, TaskStatus status) {
+        return updateTaskStatus(id, status, ANY_VERSION).applied();
     }
 
     /**
-     * Configura stub para eliminar tarea.
+     * Actualización condicional: solo se aplica si la tarea sigue en
+     * {@code expectedVersion} ({@link #ANY_VERSION} para cualquiera).
+     * El resultado lleva la tarea escrita o, si hubo conflicto, la actual.
      */
-    public void setupDeleteTodoStub(int id, int status) {
-        stubFor(WireMock.delete(urlPathEqualTo("/api/todos/" + id))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "application/json")
-                        .withBody(status == 204 ? "" : "{\"message\": \"Tarea no encontrada\"}")
-                        .withStatus(status)));
+    public Update updateTaskStatus(int id, TaskStatus status, int expectedVersion) {
+        return mutate(() -> applyStatus(id, status, expectedVersion),
+                (j, update) -> update.applied() ? j.update(update.task()) : null);
+    }
+
+    /** Resultado de una actualización: {@code task} es null si la tarea no existe. */
+    public record Update(Task task, boolean applied) {
+        static final Update NOT_FOUND = new Update(null, false);
+
+        public boolean conflict() {
+            return task != null && !applied;
+        }
+    }
+
+    /** Comprueba la versión y sustituye la tarea; se llama con mutationLock. */
+    private Update applyStatus(int id, TaskStatus status, int expectedVersion) {
+        Task current = store.tasks().get(id);
+        if (current == null) {
+            return Update.NOT_FOUND;
+        }
+        if (expectedVersion != ANY_VERSION && current.version() != expectedVersion) {
+            return new Update(current, false);
+        }
+        Task updated = current.withStatus(status);
+        store.tasks().put(id, updated);
+        reindex(id);
+        events.publish(TaskEventLog.Type.UPDATED, id, updated);
+        return new Update(updated, true);
     }
 
     /**
-     * Configura stub para la página HTML de la UI.
+     * Elimina una tarea.
      */
-    public void setupUiStub() {
-        stubFor(WireMock.get(urlPathEqualTo("/"))
-                .willReturn(aResponse()
-                        .withHeader("Content-Type", "text/html")
-                        .withBody(getTodoHtmlPage())
-                        .withStatus(200)));
+    public boolean deleteTask(int id) {
+        return mutate(() -> removeTask(id), (j, removed) -> removed ? j.delete(id) : null);
     }
 
-    // ================== Métodos de gestión de tareas ==================
+    private boolean removeTask(int id) {
+        Task removed = store.tasks().remove(id);
+        if (removed == null) {
+            return false;
+        }
+        reindex(id);
+        events.publish(TaskEventLog.Type.DELETED, id, removed);
+        return true;
+    }
 
     /**
-     * Crea una tarea en el almacenamiento interno.
+     * Alinea el índice por estado con el valor actual de la tarea. Los lectores
+     * no toman el cerrojo, así que pueden ver el índice un instante por detrás.
      */
-    public int createTask(String titulo, String descripcion, String status) {
-        int id = idGenerator.getAndIncrement();
-        Map<String, Object> task = new ConcurrentHashMap<>();
-        task.put("id", id);
-        task.put("title", titulo);
-        task.put("titulo", titulo);
-        task.put("description", descripcion != null ? descripcion : "");
-        task.put("descripcion", descripcion != null ? descripcion : "");
-        task.put("status", status != null ? status : "PENDING");
-        tasks.put(id, task);
-        return id;
+    private void reindex(int id) {
+        Store s = store;
+        Task current = s.tasks().get(id);
+        for (Map.Entry<TaskStatus, ConcurrentSkipListMap<Integer, Task>> entry : s.byStatus().entrySet()) {
+            if (current != null && current.status() == entry.getKey()) {
+                entry.getValue().put(id, current);
+            } else {
+                entry.getValue().remove(id);
+            }
+        }
+    }
+
+    private void clearTasks() {
+        store = Store.empty();
+        idGenerator.set(1);
+        events.publish(TaskEventLog.Type.RESET, 0, null);
     }
 
+    // ================== Persistencia: snapshot + journal ==================
+
     /**
-     * Obtiene todas las tareas.
+     * Aplica una mutación del almacén bajo mutationLock, como la carga de
+     * snapshots y fixtures, con o sin persistencia. Con persistencia el journal
+     * las registra en el mismo orden en que se aplicaron y se espera al commit
+     * en grupo fuera del cerrojo.
+     * {@code log} devuelve null si no hay nada que registrar.
      */
-    public List<Map<String, Object>> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+    private <T> T mutate(Supplier<T> mutation, BiFunction<TaskJournal, T, Long> log) {
+        T result;
+        Long seq = null;
+        TaskJournal j;
+        synchronized (mutationLock) {
+            result = mutation.get();
+            j = journal;
+            if (j != null) seq = log.apply(j, result);
+        }
+        if (seq != null) j.awaitDurable(seq);
+        return result;
     }
 
     /**
-     * Obtiene tareas filtradas por estado.
+     * Guarda el almacén como snapshot binario. Si es el snapshot de la persistencia
+     * activa, el journal se vacía porque el snapshot ya recoge sus mutaciones.
      */
-    public List<Map<String, Object>> getTasksByStatus(String status) {
-        List<Map<String, Object>> filtered = new ArrayList<>();
-        for (Map<String, Object> task : tasks.values()) {
-            if (status.equals(task.get("status"))) {
-                filtered.add(task);
+    public void saveSnapshot(Path file) {
+        synchronized (mutationLock) {
+            try {
+                ConcurrentSkipListMap<Integer, Task> tasks = store.tasks();
+                TaskSnapshot.write(file, tasks.values(), tasks.size(), idGenerator.get());
+                TaskJournal j = journal;
+                if (j != null && file.equals(snapshotFile)) j.truncate();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
-        return filtered;
     }
 
     /**
-     * Obtiene una tarea por ID.
+     * Sustituye el contenido del almacén por el de un snapshot, mapeándolo en memoria.
+     * Con persistencia activa se guarda como nuevo snapshot base para que un
+     * reinicio lo recupere sin reproducir cada tarea en el journal.
      */
-    public Map<String, Object> getTaskById(int id) {
-        return tasks.get(id);
+    public int loadSnapshot(Path file) {
+        synchronized (mutationLock) {
+            install(file);
+            if (journal != null) saveSnapshot(snapshotFile);
+            return store.tasks().size();
+        }
     }
 
     /**
-     * Actualiza el estado de una tarea.
+     * Añade al almacén las tareas de un fixture generado, con ids a partir del
+     * siguiente libre, sin pasar por HTTP ni insertar una a una: se construyen
+     * los mapas de una pasada como al cargar un snapshot. Devuelve las tareas creadas.
      */
-    public boolean updateTaskStatus(int id, String status) {
-        Map<String, Object> task = tasks.get(id);
-        if (task != null) {
-            task.put("status", status);
-            return true;
+    public int generateTasks(TaskFixture fixture) {
+        synchronized (mutationLock) {
+            ConcurrentSkipListMap<Integer, Task> tasks = store.tasks();
+            List<Task> all = new ArrayList<>(tasks.size() + fixture.count());
+            all.addAll(tasks.values());
+            int firstId = idGenerator.get();
+            fixture.generate(firstId, all::add);
+            install(all, firstId + fixture.count());
+            // Con persistencia, el fixture entra en el snapshot base en lugar de en el journal
+            if (journal != null) saveSnapshot(snapshotFile);
+            return fixture.count();
         }
-        return false;
     }
 
     /**
-     * Elimina una tarea.
+     * Lee el snapshot y construye los mapas ordenados de una pasada, sin
+     * comparaciones por inserción, y los publica sustituyendo a los actuales.
      */
-    public boolean deleteTask(int id) {
-        return tasks.remove(id) != null;
+    private void install(Path file) {
+        List<Task> all = new ArrayList<>();
+        int nextId;
+        try {
+            nextId = TaskSnapshot.read(file, all::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        install(all, nextId);
+    }
+
+    /** Publica tareas ya ordenadas por id como nuevo contenido del almacén. */
+    private void install(List<Task> all, int nextId) {
+        Map<TaskStatus, List<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, new ArrayList<>());
+        }
+        for (Task task : all) {
+            byStatus.get(task.status()).add(task);
+        }
+        Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>> index = new EnumMap<>(TaskStatus.class);
+        byStatus.forEach((status, list) -> index.put(status, TaskSnapshot.sortedMap(list)));
+        store = new Store(TaskSnapshot.sortedMap(all), index);
+        idGenerator.set(nextId);
+        events.publish(TaskEventLog.Type.RESET, 0, null);
+    }
+
+    private void restore(Task task) {
+        store.tasks().put(task.id(), task);
+        reindex(task.id());
+        if (idGenerator.get() <= task.id()) idGenerator.set(task.id() + 1);
+    }
+
+    /** Reproduce un cambio de estado con la versión que se registró, no una nueva. */
+    private void replayStatus(int id, TaskStatus status, int version) {
+        Task current = store.tasks().get(id);
+        if (current == null) return;
+        restore(new Task(id, current.title(), current.description(), status, version));
+    }
+
+    private void openPersistence(Path dir) {
+        long start = System.nanoTime();
+        snapshotFile = dir.resolve("tasks.snap");
+        synchronized (mutationLock) {
+            try {
+                if (Files.exists(snapshotFile)) {
+                    install(snapshotFile);
+                }
+                journal = TaskJournal.open(dir.resolve("tasks.journal"),
+                        ConfigManager.getBoolean("store.journal.fsync", true), new TaskJournal.Replay() {
+                            @Override public void create(Task task) { restore(task); }
+                            @Override public void update(int id, TaskStatus status, int version) { replayStatus(id, status, version); }
+                            @Override public void delete(int id) { removeTask(id); }
+                            @Override public void clear() { clearTasks(); }
+                        });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        System.out.printf("Almacén restaurado desde %s: %d tareas en %d ms%n",
+                dir, store.tasks().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void closePersistence() {
+        TaskJournal j = journal;
+        if (j == null) return;
+        if (ConfigManager.getBoolean("store.snapshot.on.stop", true)) {
+            saveSnapshot(snapshotFile);
+        }
+        journal = null;
+        try {
+            j.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     // ================== Métodos de conversión JSON ==================
 
-    public String toJson(List<Map<String, Object>> taskList) {
-        StringBuilder sb = new StringBuilder("[");
-        boolean first = true;
-        for (Map<String, Object> task : taskList) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append(toJson(task));
+    private static final byte[] ID = JsonWriter.fieldName("id");
+    private static final byte[] TITLE = JsonWriter.fieldName("title");
+    private static final byte[] TITULO = JsonWriter.fieldName("titulo");
+    private static final byte[] DESCRIPTION = JsonWriter.fieldName("description");
+    private static final byte[] DESCRIPCION = JsonWriter.fieldName("descripcion");
+    private static final byte[] STATUS = JsonWriter.fieldName("status");
+    private static final byte[] VERSION = JsonWriter.fieldName("version");
+    private static final byte[][] STATUS_VALUES = new byte[TaskStatus.values().length][];
+
+    static {
+        for (TaskStatus status : TaskStatus.values()) {
+            STATUS_VALUES[status.ordinal()] = new JsonWriter(16).string(status.name()).toByteArray();
         }
-        sb.append("]");
-        return sb.toString();
     }
 
-    public String toJson(Map<String, Object> task) {
-        StringBuilder sb = new StringBuilder("{");
+    // Un writer por hilo de Jetty: el buffer se reutiliza entre respuestas
+    private static final ThreadLocal<JsonWriter> writers = ThreadLocal.withInitial(JsonWriter::new);
+
+    /**
+     * Serializa la lista en el buffer del hilo actual y devuelve una copia de los bytes.
+     */
+    public byte[] toJsonBytes(List<Task> taskList) {
+        long start = MockRequestRecorder.serializationStart();
+        byte[] json = writeJson(taskList).toByteArray();
+        MockRequestRecorder.serializationEnd(start);
+        return json;
+    }
+
+    public byte[] toJsonBytes(Task task) {
+        long start = MockRequestRecorder.serializationStart();
+        byte[] json = writeJson(task).toByteArray();
+        MockRequestRecorder.serializationEnd(start);
+        return json;
+    }
+
+    private JsonWriter writeJson(List<Task> taskList) {
+        JsonWriter w = writers.get().reset();
+        w.raw('[');
         boolean first = true;
-        for (Map.Entry<String, Object> entry : task.entrySet()) {
-            if (!first) sb.append(",");
+        for (Task task : taskList) {
+            if (!first) w.raw(',');
             first = false;
-            sb.append("\"").append(entry.getKey()).append("\":");
-            Object value = entry.getValue();
-            if (value == null) {
-                sb.append("null");
-            } else if (value instanceof Number) {
-                sb.append(value);
-            } else {
-                sb.append("\"").append(escapeJson(value.toString())).append("\"");
-            }
+            writeTask(w, task);
         }
-        sb.append("}");
-        return sb.toString();
+        return w.raw(']');
     }
 
-    private String escapeJson(String str) {
-        return str.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    private JsonWriter writeJson(Task task) {
+        JsonWriter w = writers.get().reset();
+        writeTask(w, task);
+        return w;
     }
 
     /**
-     * Página HTML simple para simular la UI de tareas.
+     * Los alias en español se generan aquí: la tarea solo guarda cada texto una vez.
      */
-    private String getTodoHtmlPage() {
-        return "<!DOCTYPE html>\n" +
-                "<html lang=\"es\">\n" +
-                "<head>\n" +
-                "    <meta charset=\"UTF-8\">\n" +
-                "    <title>Lista de Tareas</title>\n" +
-                "    <style>\n" +
-                "        body { font-family: Arial, sans-serif; margin: 20px; }\n" +
-                "        .task-list { margin-top: 20px; }\n" +
-                "        .todo-item { padding: 10px; border: 1px solid #ccc; margin: 5px 0; }\n" +
-                "        .todo-item.completed { background-color: #d4edda; text-decoration: line-through; }\n" +
-                "        .error-message { color: red; }\n" +
-                "        input[type=\"text\"] { padding: 8px; width: 300px; }\n" +
-                "        button { padding: 8px 15px; }\n" +
-                "    </style>\n" +
-                "</head>\n" +
-                "<body>\n" +
-                "    <h1>Lista de Tareas</h1>\n" +
-                "    <div id=\"task-form\">\n" +
-                "        <input type=\"text\" id=\"todo-title-input\" placeholder=\"Nueva tarea\">\n" +
-                "        <button id=\"add-todo-btn\">Agregar</button>\n" +
-                "        <p class=\"error-message\" style=\"display:none;\"></p>\n" +
-                "    </div>\n" +
-                "    <div id=\"task-list\" class=\"task-list\"></div>\n" +
-                "    \n" +
-                "    <script>\n" +
-                "        const tasks = [];\n" +
-                "        let taskIdCounter = 1;\n" +
-                "        \n" +
-                "        function renderTasks() {\n" +
-                "            const list = document.getElementById('task-list');\n" +
-                "            list.innerHTML = '';\n" +
-                "            tasks.forEach(task => {\n" +
-                "                const div = document.createElement('div');\n" +
-                "                div.className = 'todo-item' + (task.status === 'DONE' ? ' completed' : '');\n" +
-                "                div.innerHTML = `\n" +
-                "                    <input type=\"checkbox\" onchange=\"toggleTask(${task.id})\" ${task.status === 'DONE' ? 'checked' : ''}>\n" +
-                "                    <span>${task.titulo}</span>\n" +
-                "                    <button class=\"delete-btn\" onclick=\"deleteTask(${task.id})\">Eliminar</button>\n" +
-                "                `;\n" +
-                "                list.appendChild(div);\n" +
-                "            });\n" +
-                "        }\n" +
-                "        \n" +
-                "        function addTask() {\n" +
-                "            const tituloInput = document.getElementById('todo-title-input');\n" +
-                "            const titulo = tituloInput.value.trim();\n" +
-                "            const errorEl = document.querySelector('.error-message');\n" +
-                "            \n" +
-                "            if (!titulo) {\n" +
-                "                errorEl.textContent = 'El título es obligatorio';\n" +
-                "                errorEl.style.display = 'block';\n" +
-                "                return;\n" +
-                "            }\n" +
-                "            \n" +
-                "            errorEl.style.display = 'none';\n" +
-                "            tasks.push({ id: taskIdCounter++, titulo: titulo, status: 'PENDING' });\n" +
-                "            tituloInput.value = '';\n" +
-                "            renderTasks();\n" +
-                "        }\n" +
-                "        \n" +
-                "        function toggleTask(id) {\n" +
-                "            const task = tasks.find(t => t.id === id);\n" +
-                "            if (task) {\n" +
-                "                task.status = task.status === 'PENDING' ? 'DONE' : 'PENDING';\n" +
-                "                renderTasks();\n" +
-                "            }\n" +
-                "        }\n" +
-                "        \n" +
-                "        function deleteTask(id) {\n" +
-                "            const index = tasks.findIndex(t => t.id === id);\n" +
-                "            if (index > -1) {\n" +
-                "                tasks.splice(index, 1);\n" +
-                "                renderTasks();\n" +
-                "            }\n" +
-                "        }\n" +
-                "        \n" +
-                "        document.getElementById('add-todo-btn').addEventListener('click', addTask);\n" +
-                "        document.getElementById('todo-title-input').addEventListener('keypress', (e) => {\n" +
-                "            if (e.key === 'Enter') addTask();\n" +
-                "        });\n" +
-                "    </script>\n" +
-                "</body>\n" +
-                "</html>";
+    private static void writeTask(JsonWriter w, Task task) {
+        w.raw('{').raw(ID).number(task.id());
+        w.raw(',').raw(TITLE).string(task.title());
+        w.raw(',').raw(TITULO).string(task.title());
+        w.raw(',').raw(DESCRIPTION).string(task.description());
+        w.raw(',').raw(DESCRIPCION).string(task.description());
+        w.raw(',').raw(STATUS).raw(STATUS_VALUES[task.status().ordinal()]);
+        w.raw(',').raw(VERSION).number(task.version());
+        w.raw('}');
     }
 }
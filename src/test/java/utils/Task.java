@@ -0,0 +1,25 @@
+package utils;
+
+/**
+ * Tarea inmutable del almacén del mock. Título y descripción se guardan una
+ * sola vez; los alias en español ({@code titulo}, {@code descripcion}) solo
+ * existen en el JSON que genera {@link MockServerManager}.
+ * Cada cambio crea un valor nuevo con la versión siguiente: el almacén lo
+ * sustituye con compare-and-set y la versión viaja como ETag.
+ */
+public record Task(int id, String title, String description, TaskStatus status, int version) {
+    public static final int FIRST_VERSION = 1;
+
+    public Task(int id, String title, String description, TaskStatus status) {
+        this(id, title, description, status, FIRST_VERSION);
+    }
+
+    public Task withStatus(TaskStatus newStatus) {
+        return new Task(id, title, description, newStatus, version + 1);
+    }
+
+    /** ETag fuerte de esta versión de la tarea. */
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+}
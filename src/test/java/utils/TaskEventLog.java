@@ -0,0 +1,104 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro acotado de cambios del almacén (anillo de tamaño fijo) que sirve
+ * el feed {@code /events}. Publicar no bloquea: se reserva la secuencia con un
+ * contador atómico y se escribe la casilla; solo si hay lectores esperando se
+ * toma el cerrojo para despertarlos.
+ * Los cambios concurrentes de una misma tarea pueden publicarse en otro orden
+ * que el de sus versiones; quien consume descarta versiones ya vistas.
+ */
+final class TaskEventLog {
+    enum Type {
+        CREATED, UPDATED, DELETED,
+        /** El almacén se vació o se sustituyó (reset, snapshot, fixture): hay que releer. */
+        RESET
+    }
+
+    /** {@code task} es el valor tras el cambio (el eliminado en DELETED, null en RESET). */
+    record Event(long seq, Type type, int id, Task task) { }
+
+    private final AtomicReferenceArray<Event> ring;
+    private final int capacity;
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+
+    TaskEventLog(int capacity) {
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    void publish(Type type, int id, Task task) {
+        long seq = lastSeq.incrementAndGet();
+        ring.set((int) (seq % capacity), new Event(seq, type, id, task));
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Secuencia del último evento reservado; todo cambio posterior tendrá una mayor. */
+    long head() {
+        return lastSeq.get();
+    }
+
+    /**
+     * Eventos con secuencia mayor que {@code since}, hasta {@code max}; si aún no
+     * hay ninguno espera hasta {@code timeoutMillis}. Devuelve null si los eventos
+     * siguientes a {@code since} ya se sobrescribieron en el anillo.
+     */
+    List<Event> after(long since, int max, long timeoutMillis) throws InterruptedException {
+        List<Event> events = read(since, max);
+        if (events == null || !events.isEmpty() || timeoutMillis <= 0) {
+            return events;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        waiting.incrementAndGet();
+        lock.lock();
+        try {
+            // Se vuelve a leer con el contador ya incrementado: un publish posterior nos despertará
+            while ((events = read(since, max)) != null && events.isEmpty() && remaining > 0) {
+                remaining = published.awaitNanos(remaining);
+            }
+            return events;
+        } finally {
+            lock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    private List<Event> read(long since, int max) {
+        long last = lastSeq.get();
+        if (since < last - capacity) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>((int) Math.min(max, Math.max(0, last - since)));
+        for (long seq = since + 1; seq <= last && events.size() < max; seq++) {
+            Event event = ring.get((int) (seq % capacity));
+            if (event == null || event.seq() < seq) {
+                // Reservada pero aún sin escribir: se entrega hasta aquí para no saltarla
+                break;
+            }
+            if (event.seq() > seq) {
+                return null;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+}
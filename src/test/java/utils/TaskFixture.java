@@ -0,0 +1,142 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Generador determinista de tareas para escenarios de volumen.
+ * Con la misma semilla produce siempre las mismas tareas: el reparto de estados
+ * es exacto (muestreo secuencial, no una probabilidad por tarea) y los textos
+ * salen de un vocabulario fijo con longitudes uniformes en [min, max].
+ * El coste es lineal en el número de tareas.
+ */
+public record TaskFixture(int count, long seed, Map<TaskStatus, Integer> percentages,
+                          int titleMin, int titleMax, int descriptionMin, int descriptionMax) {
+
+    private static final String[] WORDS = {
+            "revisar", "informe", "comprar", "leche", "llamar", "cliente", "preparar", "reunión",
+            "enviar", "factura", "actualizar", "documentación", "planificar", "sprint", "pagar",
+            "alquiler", "reservar", "vuelo", "corregir", "pruebas", "ordenar", "escritorio",
+            "leer", "libro", "estudiar", "BDD", "entrenar", "piernas", "limpiar", "cocina"
+    };
+    // Texto fijo del que se recortan títulos y descripciones; se construye una vez
+    private static final String TEXT = buildText(1 << 14);
+
+    public TaskFixture {
+        if (count < 0) throw new IllegalArgumentException("count no puede ser negativo: " + count);
+        if (percentages == null) throw new IllegalArgumentException("Faltan los porcentajes de estado");
+        int total = 0;
+        for (Map.Entry<TaskStatus, Integer> e : percentages.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                throw new IllegalArgumentException("Estado o porcentaje nulo: " + percentages);
+            }
+            if (e.getValue() < 0 || e.getValue() > 100) {
+                throw new IllegalArgumentException("Porcentaje fuera de 0..100 para " + e.getKey() + ": " + e.getValue());
+            }
+            total += e.getValue();
+        }
+        if (total != 100) throw new IllegalArgumentException("Los porcentajes de estado deben sumar 100: " + percentages);
+        if (titleMin < 1 || titleMin > titleMax || titleMax > 100) {
+            throw new IllegalArgumentException("Longitud de título fuera de 1..100: " + titleMin + ".." + titleMax);
+        }
+        if (descriptionMin < 0 || descriptionMin > descriptionMax || descriptionMax > TEXT.length()) {
+            throw new IllegalArgumentException("Longitud de descripción no válida: " + descriptionMin + ".." + descriptionMax);
+        }
+        percentages = new EnumMap<>(percentages);
+    }
+
+    /**
+     * {@code count} tareas con el porcentaje indicado en DONE y el resto PENDING,
+     * con la semilla y longitudes de fixture.* de la configuración.
+     */
+    public static TaskFixture of(int count, int donePercent) {
+        Map<TaskStatus, Integer> mix = new EnumMap<>(TaskStatus.class);
+        mix.put(TaskStatus.DONE, donePercent);
+        mix.put(TaskStatus.PENDING, 100 - donePercent);
+        return new TaskFixture(count, ConfigManager.getInt("fixture.seed", 42), mix,
+                ConfigManager.getInt("fixture.title.min", 10), ConfigManager.getInt("fixture.title.max", 60),
+                ConfigManager.getInt("fixture.description.min", 0), ConfigManager.getInt("fixture.description.max", 200));
+    }
+
+    public TaskFixture withSeed(long newSeed) {
+        return new TaskFixture(count, newSeed, percentages, titleMin, titleMax, descriptionMin, descriptionMax);
+    }
+
+    public TaskFixture withTitleLength(int min, int max) {
+        return new TaskFixture(count, seed, percentages, min, max, descriptionMin, descriptionMax);
+    }
+
+    public TaskFixture withDescriptionLength(int min, int max) {
+        return new TaskFixture(count, seed, percentages, titleMin, titleMax, min, max);
+    }
+
+    /** Número exacto de tareas que tendrán el estado indicado. */
+    public int expected(TaskStatus status) {
+        return quotas()[status.ordinal()];
+    }
+
+    /**
+     * Genera las tareas con ids consecutivos desde {@code firstId}, en orden de id.
+     */
+    public void generate(int firstId, Consumer<Task> sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        TaskStatus[] statuses = TaskStatus.values();
+        int[] remaining = quotas();
+        for (int i = 0; i < count; i++) {
+            // Muestreo secuencial: cada estado sale con probabilidad proporcional a lo que le falta
+            int pick = random.nextInt(count - i);
+            int s = 0;
+            while (pick >= remaining[s]) pick -= remaining[s++];
+            remaining[s]--;
+            String title = text(random, titleMin, titleMax);
+            String description = text(random, descriptionMin, descriptionMax);
+            sink.accept(new Task(firstId + i, title, description, statuses[s]));
+        }
+    }
+
+    public List<Task> generate(int firstId) {
+        List<Task> tasks = new ArrayList<>(count);
+        generate(firstId, tasks::add);
+        return tasks;
+    }
+
+    /** Reparte {@code count} según los porcentajes; lo que sobra del redondeo se reparte por turnos. */
+    private int[] quotas() {
+        TaskStatus[] statuses = TaskStatus.values();
+        int[] quotas = new int[statuses.length];
+        int assigned = 0;
+        for (TaskStatus status : statuses) {
+            quotas[status.ordinal()] = (int) ((long) count * percentages.getOrDefault(status, 0) / 100);
+            assigned += quotas[status.ordinal()];
+        }
+        for (int s = 0; assigned < count; s = (s + 1) % statuses.length) {
+            if (percentages.getOrDefault(statuses[s], 0) > 0) {
+                quotas[s]++;
+                assigned++;
+            }
+        }
+        return quotas;
+    }
+
+    private static String text(SplittableRandom random, int min, int max) {
+        int length = min == max ? min : random.nextInt(min, max + 1);
+        if (length == 0) return "";
+        int offset = random.nextInt(TEXT.length() - length + 1);
+        // Un título de un solo espacio sería inválido: se evita el espacio inicial sin cambiar la longitud
+        String value = TEXT.substring(offset, offset + length);
+        return value.charAt(0) == ' ' ? 'x' + value.substring(1) : value;
+    }
+
+    private static String buildText(int length) {
+        SplittableRandom random = new SplittableRandom(0x7A5C);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return sb.substring(0, length);
+    }
+}
@@ -0,0 +1,312 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de solo escritura con las mutaciones del almacén desde el último snapshot.
+ * Empieza con la cabecera {@code TODOJRNL} y la versión del formato; un journal de
+ * otra versión no se reproduce. Cada registro lleva longitud y CRC32; al reproducir se descarta una cola
+ * incompleta (caída a mitad de escritura) y el fichero se recorta ahí.
+ * Commit en grupo: un hilo escribe y hace fsync de todo lo acumulado de una vez,
+ * y quien espera durabilidad se despierta cuando su registro está en disco.
+ */
+final class TaskJournal implements Closeable {
+    static final byte CREATE = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+    static final byte CLEAR = 4;
+
+    private static final byte[] MAGIC = "TODOJRNL".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT = 2;
+    private static final int HEADER = MAGIC.length + 4;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    /**
+     * Receptor de los registros al reproducir el journal. Las versiones son las
+     * que se escribieron: reproducir sobre un snapshot que ya las recoge (caída
+     * entre el snapshot y el vaciado del journal) deja las mismas versiones.
+     */
+    interface Replay {
+        void create(Task task);
+        void update(int id, TaskStatus status, int version);
+        void delete(int id);
+        void clear();
+    }
+
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private int recordStart;
+    private long appended;
+    private long durable;
+    private long commits;
+    private boolean closed;
+    private IOException failure;
+    private final Thread committer;
+
+    private TaskJournal(FileChannel channel, boolean fsync) {
+        this.channel = channel;
+        this.fsync = fsync;
+        this.committer = new Thread(this::commitLoop, "task-journal");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Reproduce el journal existente (si lo hay) y lo abre para seguir añadiendo.
+     */
+    static TaskJournal open(Path file, boolean fsync, Replay replay) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long valid;
+            if (channel.size() < HEADER) {
+                // Nuevo, o la caída llegó antes de completar la cabecera
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(HEADER).put(MAGIC).putInt(FORMAT).flip(), 0);
+                if (fsync) channel.force(true);
+                valid = HEADER;
+            } else {
+                valid = replay(channel, file, replay);
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new TaskJournal(channel, fsync);
+    }
+
+    private static long replay(FileChannel channel, Path file, Replay replay) throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        byte[] magic = new byte[MAGIC.length];
+        buf.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("No es un journal de tareas: " + file);
+        }
+        int format = buf.getInt();
+        if (format != FORMAT) {
+            throw new IOException("Formato de journal no soportado: " + format + " (" + file + ")");
+        }
+        CRC32 crc = new CRC32();
+        long valid = HEADER;
+        while (buf.remaining() >= 8) {
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length <= 0 || length > buf.remaining()) break;
+            ByteBuffer record = buf.slice().limit(length);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) break;
+            apply(record, replay);
+            if (record.hasRemaining()) {
+                throw new IOException("Registro de journal con " + record.remaining() + " bytes de más: " + file);
+            }
+            buf.position(buf.position() + length);
+            valid = buf.position();
+        }
+        return valid;
+    }
+
+    private static void apply(ByteBuffer record, Replay replay) throws IOException {
+        byte op = record.get();
+        int id = record.getInt();
+        switch (op) {
+            case CREATE: {
+                TaskStatus status = status(record.get());
+                int version = record.getInt();
+                String title = readString(record);
+                String description = readString(record);
+                replay.create(new Task(id, title, description, status, version));
+                break;
+            }
+            case UPDATE: {
+                TaskStatus status = status(record.get());
+                replay.update(id, status, record.getInt());
+                break;
+            }
+            case DELETE: replay.delete(id); break;
+            case CLEAR: replay.clear(); break;
+            default: throw new IOException("Registro de journal desconocido: " + op);
+        }
+    }
+
+    private static TaskStatus status(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= STATUSES.length) {
+            throw new IOException("Estado desconocido en el journal: " + ordinal);
+        }
+        return STATUSES[ordinal];
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ================== Escritura ==================
+
+    long create(Task task) {
+        byte[] title = task.title().getBytes(StandardCharsets.UTF_8);
+        byte[] description = task.description().getBytes(StandardCharsets.UTF_8);
+        synchronized (lock) {
+            ByteBuffer b = begin(1 + 4 + 1 + 4 + 4 + title.length + 4 + description.length);
+            b.put(CREATE).putInt(task.id()).put((byte) task.status().ordinal()).putInt(task.version());
+            b.putInt(title.length).put(title).putInt(description.length).put(description);
+            return end(b);
+        }
+    }
+
+    long update(Task task) {
+        synchronized (lock) {
+            return end(begin(1 + 4 + 1 + 4).put(UPDATE).putInt(task.id())
+                    .put((byte) task.status().ordinal()).putInt(task.version()));
+        }
+    }
+
+    long delete(int id) {
+        synchronized (lock) {
+            return end(begin(1 + 4).put(DELETE).putInt(id));
+        }
+    }
+
+    long clear() {
+        synchronized (lock) {
+            return end(begin(1 + 4).put(CLEAR).putInt(0));
+        }
+    }
+
+    /** Reserva cabecera (longitud + CRC) y cuerpo en el buffer pendiente. */
+    private ByteBuffer begin(int length) {
+        if (closed) throw new IllegalStateException("Journal cerrado");
+        int needed = 8 + length;
+        if (pending.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        recordStart = pending.position();
+        pending.putInt(length).putInt(0);
+        return pending;
+    }
+
+    /** Completa el CRC del registro recién escrito y avisa al hilo de commit. */
+    private long end(ByteBuffer b) {
+        int bodyStart = recordStart + 8;
+        crc.reset();
+        crc.update(b.duplicate().position(bodyStart).limit(b.position()));
+        b.putInt(recordStart + 4, (int) crc.getValue());
+        lock.notifyAll();
+        return ++appended;
+    }
+
+    /**
+     * Bloquea hasta que el registro {@code seq} está escrito (y sincronizado si fsync).
+     */
+    void awaitDurable(long seq) {
+        synchronized (lock) {
+            while (durable < seq && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failure != null) throw new UncheckedIOException(failure);
+        }
+    }
+
+    /**
+     * Espera a que todo lo añadido esté en disco y vacía el journal (tras un
+     * snapshot), dejando solo la cabecera. Quien llama garantiza que no hay escrituras concurrentes.
+     */
+    void truncate() throws IOException {
+        long target;
+        synchronized (lock) {
+            target = appended;
+        }
+        awaitDurable(target);
+        synchronized (lock) {
+            channel.truncate(HEADER);
+            channel.position(HEADER);
+        }
+    }
+
+    long commits() {
+        synchronized (lock) {
+            return commits;
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            long target;
+            synchronized (lock) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0 && closed) return;
+                // Se intercambian los buffers: los nuevos registros se acumulan mientras se escribe
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                target = appended;
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) channel.write(writing);
+                writing.clear();
+                if (fsync) channel.force(false);
+                synchronized (lock) {
+                    durable = target;
+                    commits++;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
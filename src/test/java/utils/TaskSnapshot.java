@@ -0,0 +1,251 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot binario del almacén de tareas.
+ * Formato: cabecera {@code TODOSNAP}, versión, número de tareas y siguiente id;
+ * después cada tarea como id, estado (ordinal), versión y título/descripción
+ * en UTF-8 con su longitud. Las tareas van en orden de id, así que la carga es una
+ * lectura secuencial del fichero mapeado en memoria. Solo se lee la versión actual del formato.
+ */
+final class TaskSnapshot {
+    private static final byte[] MAGIC = "TODOSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private TaskSnapshot() { }
+
+    /**
+     * Escribe el snapshot en un temporal y lo renombra de forma atómica,
+     * así un fallo a mitad nunca deja un snapshot truncado.
+     */
+    static void write(Path file, Iterable<Task> tasks, int count, int nextId) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream raw = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16));
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(nextId);
+            int written = 0;
+            for (Task task : tasks) {
+                if (written == count) break;
+                writeTask(out, task);
+                written++;
+            }
+            out.flush();
+            if (written != count) {
+                // Con escrituras concurrentes el recuento pudo cambiar: se corrige en la cabecera
+                channel.write(ByteBuffer.allocate(4).putInt(0, written), MAGIC.length + 4);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeInt(task.id());
+        out.writeByte(task.status().ordinal());
+        out.writeInt(task.version());
+        writeString(out, task.title());
+        writeString(out, task.description());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Mapea el snapshot y entrega cada tarea en orden de id; devuelve el siguiente id.
+     */
+    static int read(Path file, Consumer<Task> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("No es un snapshot de tareas: " + file);
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Versión de snapshot no soportada: " + version);
+            }
+            int count = buf.getInt();
+            int nextId = buf.getInt();
+            byte[] scratch = new byte[256];
+            int previousId = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int id = buf.getInt();
+                if (id <= previousId) {
+                    throw new IOException("Snapshot desordenado en la tarea " + i + ": " + file);
+                }
+                previousId = id;
+                byte ordinal = buf.get();
+                if (ordinal < 0 || ordinal >= STATUSES.length) {
+                    throw new IOException("Estado desconocido en la tarea " + id + ": " + ordinal + " (" + file + ")");
+                }
+                TaskStatus status = STATUSES[ordinal];
+                int taskVersion = buf.getInt();
+                int titleLength = buf.getInt();
+                if (scratch.length < titleLength) scratch = new byte[titleLength];
+                buf.get(scratch, 0, titleLength);
+                String title = new String(scratch, 0, titleLength, StandardCharsets.UTF_8);
+                int descLength = buf.getInt();
+                if (scratch.length < descLength) scratch = new byte[descLength];
+                buf.get(scratch, 0, descLength);
+                String description = new String(scratch, 0, descLength, StandardCharsets.UTF_8);
+                sink.accept(new Task(id, title, description, status, taskVersion));
+            }
+            return nextId;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot truncado: " + file, e);
+        }
+    }
+
+    /**
+     * Construye un mapa concurrente a partir de tareas ya ordenadas por id. El
+     * constructor desde un SortedMap enlaza los nodos de una pasada, sin buscar
+     * la posición de cada inserción como haría un bucle de put.
+     */
+    static ConcurrentSkipListMap<Integer, Task> sortedMap(List<Task> sortedById) {
+        return new ConcurrentSkipListMap<>(new SortedView(sortedById));
+    }
+
+    /**
+     * SortedMap de solo lectura sobre una lista ordenada por id, sin copiarla.
+     * Las búsquedas y las submapas son binarias sobre la lista.
+     */
+    private static final class SortedView extends AbstractMap<Integer, Task> implements SortedMap<Integer, Task> {
+        private final List<Task> tasks;
+
+        SortedView(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return tasks.size();
+        }
+
+        @Override
+        public Task get(Object key) {
+            if (!(key instanceof Integer)) return null;
+            int i = indexOf((Integer) key);
+            return i >= 0 ? tasks.get(i) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Task>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return tasks.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<Integer, Task>> iterator() {
+                    Iterator<Task> it = tasks.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<Integer, Task> next() {
+                            Task task = it.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(task.id(), task);
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public Integer firstKey() {
+            if (tasks.isEmpty()) throw new NoSuchElementException();
+            return tasks.get(0).id();
+        }
+
+        @Override
+        public Integer lastKey() {
+            if (tasks.isEmpty()) throw new NoSuchElementException();
+            return tasks.get(tasks.size() - 1).id();
+        }
+
+        @Override
+        public SortedMap<Integer, Task> subMap(Integer fromKey, Integer toKey) {
+            if (fromKey > toKey) throw new IllegalArgumentException("fromKey > toKey");
+            return new SortedView(tasks.subList(lowerBound(fromKey), lowerBound(toKey)));
+        }
+
+        @Override
+        public SortedMap<Integer, Task> headMap(Integer toKey) {
+            return new SortedView(tasks.subList(0, lowerBound(toKey)));
+        }
+
+        @Override
+        public SortedMap<Integer, Task> tailMap(Integer fromKey) {
+            return new SortedView(tasks.subList(lowerBound(fromKey), tasks.size()));
+        }
+
+        /** Posición de la tarea con ese id, o negativa si no está. */
+        private int indexOf(int id) {
+            int i = lowerBound(id);
+            return i < tasks.size() && tasks.get(i).id() == id ? i : -1;
+        }
+
+        /** Primera posición con id mayor o igual que {@code id}. */
+        private int lowerBound(int id) {
+            int low = 0;
+            int high = tasks.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tasks.get(mid).id() < id) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package utils;
+
+/**
+ * Estados posibles de una tarea. Al ser un enum, todas las tareas comparten
+ * la misma instancia en lugar de guardar una copia del texto.
+ */
+public enum TaskStatus {
+    PENDING,
+    DONE;
+
+    /**
+     * Convierte el texto recibido por la API; devuelve null si no es un estado válido.
+     */
+    public static TaskStatus parse(String value) {
+        if (value == null) return null;
+        for (TaskStatus status : values()) {
+            if (status.name().equals(value)) return status;
+        }
+        return null;
+    }
+}
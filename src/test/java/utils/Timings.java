@@ -0,0 +1,88 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Acumula por hilo el tiempo gastado en cada categoría durante el paso en curso.
+ * ApiClient, TodoPage, MockServerManager y Hooks registran aquí sus tiempos y el
+ * plugin de tiempos los recoge al terminar cada paso o hook.
+ */
+public final class Timings {
+    public enum Category {
+        HTTP("HTTP"),
+        UI_WAIT("espera UI"),
+        STUB("stubs"),
+        SETUP("setup");
+
+        private final String label;
+
+        Category(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final int CATEGORIES = Category.values().length;
+    // Atómico: lo que un hilo lanza en asíncrono puede terminar en otro (ver recorder())
+    private static final ThreadLocal<AtomicLongArray> current =
+            ThreadLocal.withInitial(() -> new AtomicLongArray(CATEGORIES));
+
+    private Timings() { }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void record(Category category, long startNanos) {
+        current.get().addAndGet(category.ordinal(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Registro ligado al acumulador del hilo que llama, para trabajo que termina
+     * en otro hilo (peticiones asíncronas): el tiempo cuenta para ese hilo.
+     */
+    public static Recorder recorder() {
+        AtomicLongArray acc = current.get();
+        return (category, startNanos) -> acc.addAndGet(category.ordinal(), System.nanoTime() - startNanos);
+    }
+
+    @FunctionalInterface
+    public interface Recorder {
+        void record(Category category, long startNanos);
+    }
+
+    public static <T> T time(Category category, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(category, start);
+        }
+    }
+
+    public static void time(Category category, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(category, start);
+        }
+    }
+
+    /**
+     * Devuelve los nanosegundos acumulados por categoría (índice = ordinal)
+     * y deja el acumulador del hilo a cero.
+     */
+    public static long[] drain() {
+        AtomicLongArray acc = current.get();
+        long[] copy = new long[CATEGORIES];
+        for (int i = 0; i < CATEGORIES; i++) {
+            copy[i] = acc.getAndSet(i, 0);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,493 @@
+package utils;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Extensión de WireMock que resuelve la API de tareas contra el almacén de
+ * {@link MockServerManager}: una sola mapping cubre todo {@code /api/todos}
+ * y cada petición se responde con el estado actual, sin registrar stubs.
+ * Las respuestas de una tarea llevan su versión como ETag; un PATCH con
+ * {@code If-Match} solo se aplica si la tarea sigue en esa versión (si no, 412).
+ * {@code /events} sirve el feed de cambios como server-sent events.
+ */
+class TodoApiTransformer implements ResponseDefinitionTransformerV2 {
+    static final String NAME = "todo-api";
+    static final String NEXT_CURSOR_HEADER = ApiClient.NEXT_CURSOR_HEADER;
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String BATCH_PATH = "/batch";
+    private static final String EVENTS_PATH = "/events";
+    static final String EVENT_SEQ_HEADER = ApiClient.EVENT_SEQ_HEADER;
+    private static final int MAX_EVENTS = 500;
+    private static final byte[] EVENT_ID = "id: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_NAME = "\nevent: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_DATA = "\ndata: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEEPALIVE = ": sin cambios\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[][] EVENT_TYPES = new byte[TaskEventLog.Type.values().length][];
+
+    static {
+        for (TaskEventLog.Type type : TaskEventLog.Type.values()) {
+            EVENT_TYPES[type.ordinal()] = type.name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    private static final String NOT_FOUND = "Tarea no encontrada";
+    private static final byte[] MESSAGE = JsonWriter.fieldName("message");
+    private static final byte[] STATUS = JsonWriter.fieldName("status");
+    private static final byte[] BODY = JsonWriter.fieldName("body");
+    private static final byte[] CURRENT = JsonWriter.fieldName("current");
+
+    /**
+     * Resultado de una operación individual, compartido por la ruta simple y la de lotes.
+     * {@code etag} es la versión de la tarea devuelta, o null.
+     */
+    private record Outcome(int status, byte[] body, String etag) {
+        Outcome(int status, byte[] body) {
+            this(status, body, null);
+        }
+    }
+
+    private final MockServerManager store;
+    private final String basePath;
+    private final long maxEventsWaitMs;
+    // Cada long-poll retiene un hilo de Jetty mientras espera: se acota cuántos a la vez
+    private final Semaphore eventPollers;
+
+    TodoApiTransformer(MockServerManager store, String basePath) {
+        this.store = store;
+        this.basePath = basePath;
+        this.maxEventsWaitMs = Math.max(0, ConfigManager.getInt("mock.events.max.wait.ms", 5000));
+        this.eventPollers = new Semaphore(Math.max(1, ConfigManager.getInt("mock.events.max.pollers", 4)));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+        return MockRequestRecorder.transform(serveEvent, () -> route(serveEvent.getRequest()));
+    }
+
+    private ResponseDefinition route(Request request) {
+        String path = request.getUrl();
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+
+        if (path.equals(basePath)) {
+            switch (request.getMethod().getName()) {
+                case "GET": return list(request);
+                case "POST": return respond(create(readBody(request)));
+                default: return error(405, "Metodo no soportado");
+            }
+        }
+        if (path.equals(basePath + EVENTS_PATH)) {
+            return "GET".equals(request.getMethod().getName()) ? events(request) : error(405, "Metodo no soportado");
+        }
+        if (path.equals(basePath + BATCH_PATH)) {
+            switch (request.getMethod().getName()) {
+                case "POST": return batch(request, false);
+                case "PATCH": return batch(request, true);
+                default: return error(405, "Metodo no soportado");
+            }
+        }
+
+        Integer id = parseId(path);
+        if (id == null) {
+            return error(404, "Recurso no encontrado");
+        }
+        switch (request.getMethod().getName()) {
+            case "GET": return getById(id);
+            case "PATCH": return respond(updateStatus(id, readBody(request), request.getHeader("If-Match")));
+            case "DELETE": return delete(id);
+            default: return error(405, "Metodo no soportado");
+        }
+    }
+
+    private ResponseDefinition list(Request request) {
+        QueryParameter status = request.queryParameter("status");
+        QueryParameter limit = request.queryParameter("limit");
+        if (limit.isPresent()) {
+            return page(request, status, limit.firstValue());
+        }
+        long head = store.eventHead();
+        List<Task> tasks = status.isPresent() && !status.firstValue().isEmpty()
+                // Un estado desconocido simplemente no tiene tareas
+                ? store.getTasksByStatus(status.firstValue())
+                : store.getAllTasks();
+        return ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withHeader(EVENT_SEQ_HEADER, Long.toString(head))
+                .withBody(store.toJsonBytes(tasks))
+                .build();
+    }
+
+    /**
+     * Feed de cambios en formato server-sent events, como long-poll: devuelve los
+     * eventos posteriores a {@code since} (o a la cabecera Last-Event-ID con la que
+     * reconecta un EventSource) y, si no hay ninguno, espera hasta {@code timeout} ms
+     * (como mucho mock.events.max.wait.ms). WireMock envía cada respuesta entera, así
+     * que el cliente vuelve a pedir desde el último id recibido. 410 si esos eventos
+     * ya salieron del anillo; 503 con Retry-After si no hay eventos y ya esperan
+     * mock.events.max.pollers peticiones.
+     */
+    private ResponseDefinition events(Request request) {
+        String lastEventId = request.getHeader("Last-Event-ID");
+        QueryParameter sinceParam = request.queryParameter("since");
+        String sinceValue = sinceParam.isPresent() ? sinceParam.firstValue() : lastEventId;
+        long since;
+        long wait;
+        try {
+            since = sinceValue == null || sinceValue.isEmpty() ? store.eventHead() : Long.parseLong(sinceValue);
+            QueryParameter timeout = request.queryParameter("timeout");
+            wait = timeout.isPresent() ? Long.parseLong(timeout.firstValue()) : maxEventsWaitMs;
+        } catch (NumberFormatException e) {
+            return error(400, "since y timeout deben ser numericos");
+        }
+        wait = Math.max(0, Math.min(wait, maxEventsWaitMs));
+        boolean holding = wait > 0 && eventPollers.tryAcquire();
+        List<TaskEventLog.Event> batch;
+        try {
+            batch = store.events().after(since, MAX_EVENTS, holding ? wait : 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(503, "Espera interrumpida");
+        } finally {
+            if (holding) eventPollers.release();
+        }
+        if (batch != null && batch.isEmpty() && wait > 0 && !holding) {
+            // Sin hueco para esperar: el cliente reintenta en vez de ocupar otro hilo
+            return ResponseDefinitionBuilder.like(error(503, "Demasiadas esperas de eventos"))
+                    .withHeader("Retry-After", "1")
+                    .build();
+        }
+        if (batch == null) {
+            return error(410, "Eventos posteriores a " + since + " descartados; releer el estado");
+        }
+        JsonWriter w = new JsonWriter(batch.size() * 200 + KEEPALIVE.length);
+        if (batch.isEmpty()) {
+            w.raw(KEEPALIVE);
+        }
+        for (TaskEventLog.Event event : batch) {
+            w.raw(EVENT_ID).number(event.seq())
+                    .raw(EVENT_NAME).raw(EVENT_TYPES[event.type().ordinal()])
+                    .raw(EVENT_DATA);
+            if (event.task() != null) {
+                w.raw(store.toJsonBytes(event.task()));
+            } else {
+                w.raw('{').raw('}');
+            }
+            w.raw('\n').raw('\n');
+        }
+        return ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/event-stream; charset=utf-8")
+                .withHeader("Cache-Control", "no-cache")
+                .withHeader(EVENT_SEQ_HEADER, Long.toString(batch.isEmpty() ? since : batch.get(batch.size() - 1).seq()))
+                .withBody(w.toByteArray())
+                .build();
+    }
+
+    /**
+     * Listado paginado: devuelve hasta {@code limit} tareas tras el cursor y, si
+     * quedan más, el cursor de la siguiente página en {@value #NEXT_CURSOR_HEADER}.
+     */
+    private ResponseDefinition page(Request request, QueryParameter status, String limitValue) {
+        int limit;
+        try {
+            limit = Integer.parseInt(limitValue);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return error(400, "limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        TaskStatus estado = null;
+        if (status.isPresent() && !status.firstValue().isEmpty()) {
+            estado = TaskStatus.parse(status.firstValue());
+            if (estado == null) {
+                return json(200, store.toJsonBytes(List.of()));
+            }
+        }
+        int afterId = 0;
+        QueryParameter cursor = request.queryParameter("cursor");
+        if (cursor.isPresent() && !cursor.firstValue().isEmpty()) {
+            afterId = decodeCursor(cursor.firstValue());
+            if (afterId < 0) {
+                return error(400, "Cursor invalido");
+            }
+        }
+
+        // Se pide una tarea de más solo para saber si hay otra página
+        List<Task> tasks = store.getTasksAfter(estado, afterId, limit + 1);
+        boolean hasMore = tasks.size() > limit;
+        if (hasMore) {
+            tasks = tasks.subList(0, limit);
+        }
+        ResponseDefinitionBuilder response = ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(store.toJsonBytes(tasks));
+        if (hasMore) {
+            response.withHeader(NEXT_CURSOR_HEADER, encodeCursor(tasks.get(limit - 1).id()));
+        }
+        return response.build();
+    }
+
+    static String encodeCursor(int afterId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("after:" + afterId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Devuelve el id tras el que continuar, o -1 si el cursor no es válido.
+     */
+    static int decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!decoded.startsWith("after:")) return -1;
+            int afterId = Integer.parseInt(decoded.substring("after:".length()));
+            return afterId >= 0 ? afterId : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Operación por lotes: el cuerpo es un array y la respuesta otro array con
+     * el resultado de cada elemento ({@code status} y {@code body}) en el mismo orden.
+     * Un elemento inválido no impide procesar el resto.
+     */
+    private ResponseDefinition batch(Request request, boolean update) {
+        List<Object> items = readList(request);
+        if (items == null) {
+            return error(400, "Se esperaba un array JSON");
+        }
+        JsonWriter w = new JsonWriter(items.size() * 160 + 2);
+        w.raw('[');
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> item = asMap(items.get(i));
+            Outcome outcome;
+            if (!update) {
+                outcome = create(item);
+            } else {
+                Integer id = item != null ? parseInt(item.get("id")) : null;
+                // En lotes la versión esperada va en cada elemento, no en If-Match
+                Integer version = item != null ? parseInt(item.get("version")) : null;
+                outcome = id != null ? updateStatus(id, item, version != null ? "\"" + version + "\"" : null)
+                        : new Outcome(400, errorBody("El id es obligatorio"));
+            }
+            if (i > 0) w.raw(',');
+            w.raw('{').raw(STATUS).number(outcome.status())
+                    .raw(',').raw(BODY).raw(outcome.body()).raw('}');
+        }
+        return json(200, w.raw(']').toByteArray());
+    }
+
+    private Outcome create(Map<String, Object> body) {
+        if (body == null) {
+            return new Outcome(400, errorBody("Cuerpo JSON invalido"));
+        }
+        String titulo = firstString(body, "title", "titulo");
+        if (titulo == null || titulo.trim().isEmpty()) {
+            return new Outcome(400, errorBody("El titulo es obligatorio"));
+        }
+        if (titulo.length() > MAX_TITLE_LENGTH) {
+            return new Outcome(400, errorBody("El titulo admite maximo " + MAX_TITLE_LENGTH + " caracteres"));
+        }
+        String descripcion = firstString(body, "description", "descripcion");
+        String status = firstString(body, "status", "estado");
+        TaskStatus estado = status != null ? TaskStatus.parse(status) : TaskStatus.PENDING;
+        if (estado == null) {
+            return new Outcome(400, errorBody("Estado invalido: " + status));
+        }
+        // La respuesta sale de lo escrito: un PATCH o DELETE posterior no la altera
+        Task task = store.createTask(titulo, descripcion, estado);
+        return new Outcome(201, store.toJsonBytes(task), task.etag());
+    }
+
+    /**
+     * {@value #EVENT_SEQ_HEADER} se lee antes que la tarea: los cambios que la
+     * respuesta no refleje llegarán por el feed con una secuencia mayor.
+     */
+    private ResponseDefinition getById(int id) {
+        String head = Long.toString(store.eventHead());
+        Task task = store.getTaskById(id);
+        ResponseDefinitionBuilder response = ResponseDefinitionBuilder.responseDefinition()
+                .withHeader("Content-Type", "application/json")
+                .withHeader(EVENT_SEQ_HEADER, head);
+        if (task == null) {
+            return response.withStatus(404).withBody(errorBody(NOT_FOUND)).build();
+        }
+        return response.withStatus(200).withHeader("ETag", task.etag()).withBody(store.toJsonBytes(task)).build();
+    }
+
+    /**
+     * La respuesta es la tarea que escribió esta petición, no una relectura
+     * que podría incluir el cambio de otro cliente.
+     */
+    private Outcome updateStatus(int id, Map<String, Object> body, String ifMatch) {
+        String status = body != null ? firstString(body, "status", "estado") : null;
+        if (status == null || status.isEmpty()) {
+            return new Outcome(400, errorBody("El estado es obligatorio"));
+        }
+        TaskStatus estado = TaskStatus.parse(status);
+        if (estado == null) {
+            return new Outcome(400, errorBody("Estado invalido: " + status));
+        }
+        int expected = MockServerManager.ANY_VERSION;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            Task current = store.getTaskById(id);
+            if (current == null) {
+                return new Outcome(404, errorBody(NOT_FOUND));
+            }
+            if (!matches(ifMatch, current.etag())) {
+                return conflict(current);
+            }
+            // El CAS comprueba que siga en esta versión al escribir
+            expected = current.version();
+        }
+        MockServerManager.Update update = store.updateTaskStatus(id, estado, expected);
+        if (update.task() == null) {
+            return new Outcome(404, errorBody(NOT_FOUND));
+        }
+        if (update.conflict()) {
+            return conflict(update.task());
+        }
+        return new Outcome(200, store.toJsonBytes(update.task()), update.task().etag());
+    }
+
+    /**
+     * 412 con la tarea actual, para que el cliente reintente sin volver a leerla.
+     */
+    private Outcome conflict(Task current) {
+        String message = "La tarea cambio: version actual " + current.version();
+        byte[] task = store.toJsonBytes(current);
+        JsonWriter w = new JsonWriter(message.length() + task.length + 32);
+        w.raw('{').raw(MESSAGE).string(message).raw(',').raw(CURRENT).raw(task).raw('}');
+        return new Outcome(412, w.toByteArray(), current.etag());
+    }
+
+    /**
+     * Comparación fuerte de If-Match: las etiquetas débiles (W/) nunca coinciden.
+     */
+    static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            if (candidate.trim().equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private ResponseDefinition delete(int id) {
+        if (!store.deleteTask(id)) {
+            return notFound();
+        }
+        return ResponseDefinitionBuilder.responseDefinition().withStatus(204).build();
+    }
+
+    private Integer parseId(String path) {
+        if (!path.startsWith(basePath + "/")) return null;
+        try {
+            return Integer.valueOf(path.substring(basePath.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(Request request) {
+        String body = request.getBodyAsString();
+        if (body == null || body.isBlank()) return null;
+        try {
+            return Json.read(body, Map.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> readList(Request request) {
+        String body = request.getBodyAsString();
+        if (body == null || body.isBlank()) return null;
+        try {
+            return Json.read(body, List.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object item) {
+        return item instanceof Map ? (Map<String, Object>) item : null;
+    }
+
+    private static Integer parseInt(Object value) {
+        if (value instanceof Number) return ((Number) value).intValue();
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String firstString(Map<String, Object> body, String... keys) {
+        for (String key : keys) {
+            Object value = body.get(key);
+            if (value != null) return value.toString();
+        }
+        return null;
+    }
+
+    private static ResponseDefinition notFound() {
+        return error(404, NOT_FOUND);
+    }
+
+    private static ResponseDefinition error(int status, String message) {
+        return json(status, errorBody(message));
+    }
+
+    private static byte[] errorBody(String message) {
+        JsonWriter w = new JsonWriter(message.length() + 16);
+        return w.raw('{').raw(MESSAGE).string(message).raw('}').toByteArray();
+    }
+
+    private static ResponseDefinition respond(Outcome outcome) {
+        if (outcome.etag() == null) {
+            return json(outcome.status(), outcome.body());
+        }
+        return ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(outcome.status())
+                .withHeader("Content-Type", "application/json")
+                .withHeader("ETag", outcome.etag())
+                .withBody(outcome.body())
+                .build();
+    }
+
+    private static ResponseDefinition json(int status, byte[] body) {
+        return ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(status)
+                .withHeader("Content-Type", "application/json")
+                .withBody(body)
+                .build();
+    }
+}
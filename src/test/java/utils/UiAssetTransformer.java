@@ -0,0 +1,189 @@
+package utils;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Extensión de WireMock que sirve la UI desde los recursos de {@code ui.assets.path}.
+ * Los ficheros se leen y comprimen una sola vez por JVM, con un ETag fuerte
+ * por variante; un {@code If-None-Match} que coincide recibe 304 sin cuerpo.
+ */
+class UiAssetTransformer implements ResponseDefinitionTransformerV2 {
+    static final String NAME = "ui-assets";
+    private static final String INDEX = "index.html";
+    private static final String CACHE_CONTROL = "no-cache";
+
+    /**
+     * Un recurso precargado: bytes originales y gzip, con el ETag de cada variante.
+     */
+    record Asset(String contentType, byte[] identity, byte[] gzip, String etag, String gzipEtag) {
+        boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch.trim().equals("*")) return true;
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.startsWith("W/")) t = t.substring(2);
+                if (t.equals(etag) || t.equals(gzipEtag)) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Holder {
+        static final Map<String, Asset> ASSETS = load(ConfigManager.get("ui.assets.path", "ui"));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+        Request request = serveEvent.getRequest();
+        String path = request.getUrl();
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        String name = path.equals("/") || path.isEmpty() ? INDEX : path.substring(1);
+        if (name.endsWith("/")) name += INDEX;
+
+        Asset asset = Holder.ASSETS.get(name);
+        if (asset == null) {
+            return ResponseDefinitionBuilder.responseDefinition().withStatus(404).build();
+        }
+
+        boolean gzip = acceptsGzip(request.header("Accept-Encoding"));
+        String etag = gzip ? asset.gzipEtag() : asset.etag();
+        HttpHeader ifNoneMatch = request.header("If-None-Match");
+        if (ifNoneMatch.isPresent() && asset.matches(ifNoneMatch.firstValue())) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                    .withStatus(304)
+                    .withHeader("ETag", etag)
+                    .withHeader("Cache-Control", CACHE_CONTROL)
+                    .withHeader("Vary", "Accept-Encoding")
+                    .build();
+        }
+
+        ResponseDefinitionBuilder response = ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(200)
+                .withHeader("Content-Type", asset.contentType())
+                .withHeader("ETag", etag)
+                .withHeader("Cache-Control", CACHE_CONTROL)
+                .withHeader("Vary", "Accept-Encoding");
+        if (gzip) {
+            return response.withHeader("Content-Encoding", "gzip").withBody(asset.gzip()).build();
+        }
+        return response.withBody(asset.identity()).build();
+    }
+
+    private static boolean acceptsGzip(HttpHeader acceptEncoding) {
+        if (!acceptEncoding.isPresent()) return false;
+        for (String value : acceptEncoding.values()) {
+            for (String coding : value.split(",")) {
+                String c = coding.trim().toLowerCase(Locale.ROOT);
+                if (c.startsWith("gzip") && !c.replace(" ", "").endsWith(";q=0")) return true;
+            }
+        }
+        return false;
+    }
+
+    // ================== Carga de recursos ==================
+
+    static Map<String, Asset> load(String resourceDir) {
+        URL url = UiAssetTransformer.class.getClassLoader().getResource(resourceDir);
+        if (url == null) {
+            throw new IllegalStateException("No se encuentran los recursos de UI: " + resourceDir);
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem fs = FileSystems.newFileSystem(uri, Map.of())) {
+                    return loadDir(fs.provider().getPath(uri));
+                }
+            }
+            return loadDir(Paths.get(uri));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Asset> loadDir(Path root) throws IOException {
+        Map<String, Asset> assets = new HashMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = root.relativize(file).toString().replace('\\', '/');
+                assets.put(name, toAsset(name, Files.readAllBytes(file)));
+            }
+        }
+        return Map.copyOf(assets);
+    }
+
+    static Asset toAsset(String name, byte[] content) {
+        byte[] gzip = gzip(content);
+        String hash = sha256(content);
+        return new Asset(contentType(name), content, gzip,
+                '"' + hash + '"', '"' + hash + "-gz\"");
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String contentType(String name) {
+        String ext = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (ext) {
+            case "html": return "text/html; charset=UTF-8";
+            case "js": return "text/javascript; charset=UTF-8";
+            case "css": return "text/css; charset=UTF-8";
+            case "json": return "application/json";
+            case "svg": return "image/svg+xml";
+            case "png": return "image/png";
+            default: return "application/octet-stream";
+        }
+    }
+}
@@ -44,6 +44,18 @@ Característica: : Gestión de tareas vía API REST
     Entonces la respuesta tiene código 200
     Y la tarea tiene estado "DONE"
 
+  @completar @lote
+  Escenario: Completar varias tareas en una sola petición
+    Dado existen las siguientes tareas:
+      | titulo       | estado  |
+      | Tarea uno    | PENDING |
+      | Tarea dos    | DONE    |
+      | Tarea tres   | PENDING |
+    Dado marco como completadas todas las tareas pendientes
+    Entonces la respuesta tiene código 200
+    Dado consulto las tareas con filtro "DONE"
+    Y se retornan 3 tareas
+
   @eliminar
   Escenario: Eliminar una tarea existente
     Dado existe una tarea con título "Tarea temporal"
@@ -66,3 +78,94 @@ Característica: : Gestión de tareas vía API REST
     Dado consulto las tareas con filtro "PENDING"
     Entonces la respuesta tiene código 200
     Y se retornan 2 tareas
+
+  @paginar
+  Escenario: Recorrer tareas filtradas en páginas
+    Dado existen las siguientes tareas:
+      | titulo        | estado  |
+      | Tarea uno     | PENDING |
+      | Tarea dos     | DONE    |
+      | Tarea tres    | PENDING |
+      | Tarea cuatro  | PENDING |
+      | Tarea cinco   | PENDING |
+    Dado recorro las tareas con filtro "PENDING" en páginas de 2
+    Entonces se recorren 4 tareas en 2 páginas
+
+  @paginar
+  Escenario: Recorrer todas las tareas en páginas
+    Dado existen las siguientes tareas:
+      | titulo        | estado  |
+      | Tarea uno     | PENDING |
+      | Tarea dos     | DONE    |
+      | Tarea tres    | PENDING |
+    Dado recorro todas las tareas en páginas de 2
+    Entonces se recorren 3 tareas en 2 páginas
+
+  @volumen
+  Escenario: Filtrar y paginar un volumen grande de tareas
+    Dado existen 50000 tareas con 30% DONE
+    Dado consulto las tareas con filtro "DONE"
+    Entonces la respuesta tiene código 200
+    Y se retornan 15000 tareas
+    Dado recorro las tareas con filtro "PENDING" en páginas de 1000
+    Entonces se recorren 35000 tareas en 35 páginas
+
+  @volumen
+  Escenario: Fixture generado con semilla y longitudes explícitas
+    Dado existen 20000 tareas generadas con:
+      | semilla     | 7      |
+      | DONE %      | 25     |
+      | título      | 5..40  |
+      | descripción | 0..500 |
+    Dado recorro las tareas con filtro "DONE" en páginas de 1000
+    Entonces se recorren 5000 tareas en 5 páginas
+    Y todos los títulos miden entre 5 y 40 caracteres
+
+  @volumen @outline
+  Esquema del escenario: Un fixture con porcentajes fuera de rango se rechaza
+    Entonces no se puede generar un fixture con <done>% DONE
+    Ejemplos:
+      | done |
+      | 120  |
+      | -10  |
+
+  @concurrencia
+  Escenario: Actualizar con una versión obsoleta devuelve 412
+    Dado existe una tarea con título "Revisar informe"
+    Y guardo la versión de la tarea
+    Y marco la tarea como completada
+    Cuando marco la tarea como "PENDING" con la versión guardada
+    Entonces la respuesta tiene código 412
+    Y el mensaje de error contiene "version actual 2"
+
+  @concurrencia
+  Escenario: Cambios concurrentes sobre una misma tarea no se pierden
+    Dado existe una tarea con título "Contador"
+    Cuando 4 clientes alternan el estado de la tarea 10 veces cada uno
+    Entonces la respuesta tiene código 200
+    Y la tarea tiene versión 41
+    Y la tarea tiene estado "PENDING"
+
+  @eventos
+  Escenario: Esperar el cambio de estado que hace otro cliente
+    Dado existe una tarea con título "Revisar informe"
+    Cuando otro cliente marca la tarea como "DONE" dentro de 300 ms
+    Entonces espero a que la tarea tenga estado "DONE"
+    Y la tarea tiene versión 2
+
+  @eventos
+  Escenario: Esperar a que otro cliente elimine la tarea
+    Dado existe una tarea con título "Temporal"
+    Cuando otro cliente elimina la tarea dentro de 300 ms
+    Entonces la tarea ya no existe en el sistema
+
+  @persistencia
+  Escenario: El almacén persistente se recupera tras una caída entre el snapshot y el journal
+    Dado un mock persistente con 3 tareas en el snapshot
+    Y marco la tarea 2 del mock persistente como "DONE"
+    Y el mock persistente cae justo después de escribir el snapshot
+    Y el journal del mock persistente termina con un registro a medias
+    Cuando el mock persistente se reinicia
+    Entonces el mock persistente tiene 3 tareas
+    Y la tarea 2 del mock persistente tiene estado "DONE" y versión 2
+    Y el journal del mock persistente ya no tiene el registro a medias